@@ -5,7 +5,17 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+/**
+ * Generates archive(item) and archiveAll(items), which mark the items as deleted instead of deleting them.
+ * <p>
+ * With {@link #purgeAfterDays()}, the archived items are deleted for good by the background purge
+ * of the database once they have been archived for that many days.
+ */
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Archivable {
+    /**
+     * @return the days an archived item is kept, 0 keeps it forever
+     */
+    int purgeAfterDays() default 0;
 }
@@ -0,0 +1,25 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Keeps the items read by getById(id) in memory, in a least recently used cache of {@link #size()} items.
+ * <p>
+ * Asking again for a cached id returns the same LiveData without querying the database.
+ * The generated insert, update, archive and delete methods (and their batch versions) keep the cached items
+ * up to date, the writes made by other means are not seen by the cache.
+ * The Repository exposes the cache with getEntityCache(), and its hit and miss counts to tune its size.
+ * <p>
+ * Requires the getById(id) of {@link Crudable} or {@link SelectableById}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Cacheable {
+    /**
+     * @return the maximum number of items kept in memory
+     */
+    int size() default 64;
+}
@@ -32,6 +32,8 @@ import java.lang.annotation.Target;
  *         <li>update(item) to update an item, the timestamp updated_at will automatically be set. </li>
  *         <li>delete(item) to delete the item permanently</li>
  *         <li>archive(item) to archive the item, will set the field isDeleted to true</li>
+ *         <li>insertAll(items), updateAll(items), deleteAll(items) and archiveAll(items) to do the same
+ *         for a list of items in a single transaction</li>
  *         <li>getAll() returns the list of all the items in a LiveData List</li>
  *         <li>getById(long id) returns the item with the specific id</li>
  *     </ul>
@@ -50,7 +52,7 @@ import java.lang.annotation.Target;
  * Using {@link Crudable} in this class will generate NoteDao, NoteRepository and NoteViewModel with all CRUD operations:
  * insert, update, delete, archive, getAll and getById.
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Crudable {
 
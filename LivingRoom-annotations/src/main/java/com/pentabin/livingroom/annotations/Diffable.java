@@ -0,0 +1,21 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the RecyclerView classes to display the lists of an entity (needs androidx.recyclerview):
+ * <ul>
+ * <li>EntityDiffCallback: a DiffUtil.ItemCallback, two items are the same if they have the same id,
+ * and their contents are the same if all their other columns are equal.</li>
+ * <li>EntityListAdapter: an abstract ListAdapter using this callback, the differences between
+ * the old and the new list are computed on the LivingRoom background threads.</li>
+ * </ul>
+ * Only the rows that changed are bound again when a new list is submitted.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Diffable {
+}
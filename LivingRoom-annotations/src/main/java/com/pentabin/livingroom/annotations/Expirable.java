@@ -0,0 +1,23 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Deletes the items {@link #ttlMillis()} after their insertion (created_at), for the entities used as a cache.
+ * <p>
+ * The expired items are deleted by the background purge of the database: they stay readable until the purge runs,
+ * at each start of the application or when LivingRoomDatabase.schedulePurge() is called.
+ * <p>
+ * Requires another LivingRoom annotation on the entity, such as {@link Crudable}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Expirable {
+    /**
+     * @return how long an item lives after its insertion, in milliseconds
+     */
+    long ttlMillis();
+}
@@ -0,0 +1,80 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.Executor;
+
+/**
+ * Tunes the generated LivingRoomDatabase, on any class or package of the application (at most one in the project).
+ * <p>
+ * Without this annotation the database is named custom_database and uses the default settings of Room,
+ * with the disk I/O executor of LivingRoomExecutors as query executor.
+ * <p>
+ * The pragmas are run by the onOpen() callback of the database, so they apply to the connection Room opens first:
+ * the read-only connections added by the write-ahead logging keep the defaults of SQLite.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.TYPE, ElementType.PACKAGE})
+public @interface LivingRoomConfig {
+
+    /**
+     * The journal modes of Room, the annotations do not depend on Room.
+     */
+    enum JournalMode {
+        AUTOMATIC,
+        TRUNCATE,
+        WRITE_AHEAD_LOGGING
+    }
+
+    /**
+     * @return the name of the database file
+     */
+    String name() default "custom_database";
+
+    /**
+     * @return the version of the database, to increase in the release changing the entities.
+     * With the livingroom.schemaLocation option, the schema of this version is saved in livingroom/&lt;version&gt;.schema
+     */
+    int version() default 1;
+
+    /**
+     * @return true to clear the database when Room has no migration from its version, false to fail to open it.
+     * Without it, a step of the schema history that cannot be migrated, such as a removed column, fails the build.
+     */
+    boolean fallbackToDestructiveMigration() default false;
+
+    /**
+     * @return the journal mode, AUTOMATIC lets Room use write-ahead logging when the device has enough memory
+     */
+    JournalMode journalMode() default JournalMode.AUTOMATIC;
+
+    /**
+     * @return the class of the executor running the queries, with a public no-arg constructor.
+     * Executor.class keeps the disk I/O executor of LivingRoomExecutors.
+     */
+    Class<? extends Executor> queryExecutor() default Executor.class;
+
+    /**
+     * @return the class of the executor running the transactions of Room, with a public no-arg constructor.
+     * Executor.class keeps the executor of Room. The executor must not run two transactions at the same time.
+     */
+    Class<? extends Executor> transactionExecutor() default Executor.class;
+
+    /**
+     * @return the bytes of the database file SQLite may memory map (PRAGMA mmap_size), -1 keeps the default
+     */
+    long mmapSize() default -1;
+
+    /**
+     * @return the size of the page cache (PRAGMA cache_size): pages if positive, KiB if negative, 0 keeps the default
+     */
+    int cacheSize() default 0;
+
+    /**
+     * @return true to notify the instances of the database opened by the other processes of the application
+     * of the changes of the tables, so their LiveData are refreshed
+     */
+    boolean multiInstanceInvalidation() default false;
+}
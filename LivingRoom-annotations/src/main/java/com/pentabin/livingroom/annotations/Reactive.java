@@ -0,0 +1,24 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the Dao, Repository and ViewModel of the entity with RxJava 2 types instead of LiveData
+ * (needs androidx.room:room-rxjava2 and io.reactivex.rxjava2:rxjava).
+ * <p>
+ * The selects return a Flowable, which Room re-emits when the table changes, keeping only the latest result
+ * when the subscriber is slower (BackpressureStrategy.LATEST). The paged selects keep their LiveData of PagedList.
+ * The writes return a Single of their result, or a Completable, subscribed on the writer of LivingRoomExecutors:
+ * nothing is written until they are subscribed.
+ * <p>
+ * Requires another LivingRoom annotation on the entity, such as {@link Crudable}.
+ * It cannot be used with {@link Cacheable} or {@link WriteBehind}, which keep their items in LiveData,
+ * and the Repository does not implement BasicRepository.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Reactive {
+}
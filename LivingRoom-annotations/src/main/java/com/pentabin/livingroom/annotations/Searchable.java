@@ -0,0 +1,22 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indexes a String field of an entity for full-text search, and generates search(query) returning the matching items
+ * not archived, the items with the most matches first.
+ * <p>
+ * The searchable fields of Note are copied into the FTS4 table NoteFts, generated as an @Fts4 entity of the database
+ * whose content is Note: Room keeps it in sync with triggers, and the index does not store the text twice.
+ * The query is the text of the user, such as "android room" or "andr*": each word is quoted before the MATCH,
+ * the items must contain all of them.
+ * <p>
+ * Requires another LivingRoom annotation on the entity, such as {@link Crudable}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Searchable {
+}
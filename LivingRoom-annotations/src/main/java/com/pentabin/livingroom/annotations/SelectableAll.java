@@ -1,4 +1,53 @@
 package com.pentabin.livingroom.annotations;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
 public @interface SelectableAll {
+    /**
+     * When true, also generates getAllPaged() returning a LiveData PagedList,
+     * and getAllPageAfter(lastId, limit) to read the items page by page ordered by id.
+     */
+    boolean paged() default false;
+
+    /**
+     * @return the number of items loaded per page by getAllPaged()
+     */
+    int pageSize() default 50;
+
+    /**
+     * When true, also generates forEachAll(consumer) in the Repository, giving every item to the consumer
+     * in chunks read by getAllPageAfter(lastId, limit), ordered by id. It blocks the caller, use it in a worker.
+     * Not supported with orderBy or limit.
+     */
+    boolean streamed() default false;
+
+    /**
+     * When not empty, only these columns (and the id) are read: the generated methods return
+     * a LiveData List of a generated class, the entity name + GetAll + Projection, with one public field per column.
+     * Example: columns = {"title"}
+     */
+    String[] columns() default {};
+
+    /**
+     * @return the ORDER BY clause of the query, sorted by SQLite. Example: "created_at DESC"
+     * getAllPaged() follows it too, the keyset pages are always ordered by id.
+     */
+    String orderBy() default "";
+
+    /**
+     * @return the maximum number of items returned, 0 for all of them. Ignored by the paged methods.
+     */
+    int limit() default 0;
+
+    /**
+     * @return the minimum time between two runs of the query of getAll() when the table changes, in milliseconds,
+     * 0 to re-run it after each write. The last write of a burst is always delivered, at most this time later.
+     * Not supported with @Reactive.
+     */
+    long throttleMillis() default 0;
 }
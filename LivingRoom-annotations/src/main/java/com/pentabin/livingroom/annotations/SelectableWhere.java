@@ -17,6 +17,52 @@ public @interface SelectableWhere {
     String[] params() default {""};
 
     String where();
+
+    /**
+     * When true, also generates methodNamePaged() returning a LiveData PagedList,
+     * and methodNamePageAfter(params..., lastId, limit) to read the items page by page ordered by id.
+     * The params cannot be named lastId or limit.
+     */
+    boolean paged() default false;
+
+    /**
+     * @return the number of items loaded per page by methodNamePaged()
+     */
+    int pageSize() default 50;
+
+    /**
+     * When true, also generates forEach + methodName without its get prefix (params..., consumer) in the Repository,
+     * giving every item to the consumer in chunks read by methodNamePageAfter(params..., lastId, limit), ordered by id.
+     * It blocks the caller, use it in a worker. Not supported with orderBy or limit.
+     * The params cannot be named lastId, limit or consumer.
+     */
+    boolean streamed() default false;
+
+    /**
+     * When not empty, only these columns (and the id) are read: the generated methods return
+     * a LiveData List of a generated class, the entity name + the method name + Projection, with one public field per column.
+     * Example: columns = {"title"}
+     */
+    String[] columns() default {};
+
+    /**
+     * @return the ORDER BY clause of the query, sorted by SQLite. Example: "created_at DESC"
+     * methodNamePaged() follows it too, the keyset pages are always ordered by id.
+     */
+    String orderBy() default "";
+
+    /**
+     * @return the maximum number of items returned, 0 for all of them. Ignored by the paged methods.
+     */
+    int limit() default 0;
+
+    /**
+     * @return the minimum time between two runs of the query of methodName() when the table changes, in milliseconds,
+     * 0 to re-run it after each write. The last write of a burst is always delivered, at most this time later.
+     * Not supported with @Reactive.
+     */
+    long throttleMillis() default 0;
+
     // TODO returns? List or One Live or not
     boolean liveData = true;
 }
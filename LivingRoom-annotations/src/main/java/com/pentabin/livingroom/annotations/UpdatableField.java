@@ -0,0 +1,20 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the update of this field alone, by the id of the item.
+ * Example: {@code updateTitle(long id, String title)} for the field title of Note,
+ * running {@code UPDATE Note SET title = :title, updated_at = :now WHERE id = :id}.
+ * <p>
+ * The item does not need to be read first, and only the column changed is written.
+ * Can only be used on a field of an entity marked with a LivingRoom annotation, such as {@link Crudable}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface UpdatableField {
+
+}
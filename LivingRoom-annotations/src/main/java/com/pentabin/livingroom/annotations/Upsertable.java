@@ -0,0 +1,19 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates upsert(item) and upsertAll(items): each item is inserted, with its created_at set,
+ * or the row with its id is updated, with its updated_at set and its created_at kept.
+ * <p>
+ * Both run in a single transaction on the writer, without reading the item first.
+ * The existing rows are updated in place, never deleted and reinserted.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Upsertable {
+
+}
@@ -0,0 +1,32 @@
+package com.pentabin.livingroom.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Buffers the updates of an entity before writing them to the database.
+ * <p>
+ * The generated update(item) and archive(item) methods (and their batch versions) no longer write immediately:
+ * the items are kept in memory for {@link #windowMillis()} or until {@link #maxItems()} items are pending.
+ * Several writes to the same id are collapsed into the last one, and each window is written in a single transaction.
+ * <p>
+ * The Repository and the ViewModel get a flush() method to write the pending items right away,
+ * the ViewModel also flushes when it is cleared.
+ * <p>
+ * Requires the entity to be {@link Updatable} or {@link Archivable}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface WriteBehind {
+    /**
+     * @return how long an update can stay in memory before being written, in milliseconds
+     */
+    long windowMillis() default 500;
+
+    /**
+     * @return the number of pending items that triggers a write before the end of the window
+     */
+    int maxItems() default 100;
+}
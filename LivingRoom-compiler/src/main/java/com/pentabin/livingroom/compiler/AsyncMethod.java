@@ -1,23 +1,48 @@
 package com.pentabin.livingroom.compiler;
 
-import com.squareup.javapoet.ArrayTypeName;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Update;
+
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
-import com.squareup.javapoet.TypeSpec;
 
-import javax.lang.model.element.Modifier;
+import static com.pentabin.livingroom.compiler.EntityClass.ENTITY_CACHE_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.EXECUTORS_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.RX_PACKAGE;
+import static com.pentabin.livingroom.compiler.EntityClass.WRITE_BEHIND_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.WRITE_SCHEDULER_FIELD;
 
-public class AsyncMethod extends LivingroomMethod {
-    // this sub class has only one parameter (item of type Entity)
+public class AsyncMethod extends LivingroomMethod implements AsyncVariant {
+    // this sub class has only one parameter (item of type Entity, or items of type List<Entity> for batches)
 
-    private static final String asyncTaskSuffix = "AsyncTask";
     private static final String ITEM_PARAM = "item";
+    private static final String ITEMS_PARAM = "items";
+    // returned by a blocking insert that failed, as SQLite does for a row it could not insert
+    private static final String FAILED_ID = "-1";
+    private static final ClassName SINGLE = ClassName.get(RX_PACKAGE, "Single");
+    static final ClassName COMPLETABLE = ClassName.get(RX_PACKAGE, "Completable");
+
+    private final boolean batch;
 
     AsyncMethod(EntityClass entityClass, String methodName) {
+        this(entityClass, methodName, false);
+    }
+
+    AsyncMethod(EntityClass entityClass, String methodName, boolean batch) {
         super(entityClass, methodName);
+        this.batch = batch;
+    }
+
+    static String itemParam(boolean batch) {
+        return batch ? ITEMS_PARAM : ITEM_PARAM;
+    }
+
+    boolean isBatch() {
+        return batch;
     }
 
     @Override
@@ -28,83 +53,140 @@ public class AsyncMethod extends LivingroomMethod {
         return methodBuilder;
     }
 
-    // Example: InsertEntityAsyncTask;
-    private String asyncTaskClassName(EntityClass entityClass) {
-        return this.getMethodName().substring(0, 1).toUpperCase()
-                + this.getMethodName().substring(1)
-                + entityClass.getName()
-                + asyncTaskSuffix;
+    /**
+     * Only methods returning a value get an async variant, the others never block the caller.
+     * The methods of a @Reactive entity never block, they return a Single or a Completable.
+     */
+    @Override
+    public boolean hasAsyncVariant() {
+        return !this.isReturnVoid() && !getEntityClass().isReactive();
     }
 
-    private ParameterizedTypeName getAsyncTaskType() {
-        ClassName asyncTaskClass = ClassName.get("android.os", "AsyncTask");
-        return ParameterizedTypeName.get(asyncTaskClass,
-                this.hasParams()? getParams().get(ITEM_PARAM):TypeName.get(Void.class),
-                ClassName.get(Void.class),
-                this.getReturnType());
+    /**
+     * True for the methods whose Dao method returns the ids of the inserted items.
+     */
+    boolean insertsItems() {
+        return getAnnotation() == Insert.class;
+    }
+
+    // Example: Single<Long> for insert, Completable for delete
+    private TypeName getReactiveType() {
+        return isReturnVoid() ? COMPLETABLE : ParameterizedTypeName.get(SINGLE, getReturnType().box());
+    }
+
+    // Example: () -> notedao.insert(item)
+    private CodeBlock daoCall(EntityClass entityClass) {
+        CodeBlock call = plainDaoCall(entityClass);
+        if (entityClass.isCacheable() && insertsItems())
+            // Example: () -> entityCache.inserted(item, notedao.insert(item))
+            return CodeBlock.of("() -> $N.$N($N, $L)", ENTITY_CACHE_FIELD,
+                    batch ? "insertedAll" : "inserted", itemParam(batch), call);
+        return CodeBlock.of("() -> $L", call);
+    }
+
+    // Example: entityCache.refresh(item), null when the method does not change the cached items
+    private CodeBlock cacheUpdate(EntityClass entityClass) {
+        if (!entityClass.isCacheable()) return null;
+        if (getAnnotation() == Update.class)
+            return CodeBlock.of("$N.$N($N)", ENTITY_CACHE_FIELD, batch ? "refreshAll" : "refresh", itemParam(batch));
+        if (getAnnotation() == Delete.class)
+            return CodeBlock.of("$N.$N($N)", ENTITY_CACHE_FIELD, batch ? "removeAll" : "remove", itemParam(batch));
+        return null;
+    }
+
+    // Example: notedao.update(item)
+    private CodeBlock plainDaoCall(EntityClass entityClass) {
+        return CodeBlock.of("$N.$N($N)",
+                entityClass.getDaoClassName().toLowerCase(),
+                this.getMethodName(),
+                this.hasParams() ? itemParam(batch) : "");
+    }
+
+    // Queues the write on the writer, the cached items are changed there once the Dao call has returned
+    private void addWriterCall(CodeBlock.Builder code, EntityClass entityClass) {
+        CodeBlock cacheUpdate = cacheUpdate(entityClass);
+        if (cacheUpdate == null) {
+            code.addStatement("$N.writer().execute($L)", EXECUTORS_FIELD, daoCall(entityClass));
+            return;
+        }
+        code.add("$N.writer().execute(() -> {\n$>", EXECUTORS_FIELD)
+                .addStatement("$L", plainDaoCall(entityClass))
+                .addStatement("$L", cacheUpdate)
+                .add("$<});\n");
+    }
+
+    // Example: return Single.fromCallable(() -> notedao.insert(item)).subscribeOn(writeScheduler)
+    private MethodSpec.Builder generateReactiveRepositoryMethod(EntityClass entityClass) {
+        MethodSpec.Builder builder = super.generateMethod().returns(getReactiveType());
+        if (getPreCode() != null) builder.addCode(this.getPreCode());
+        return builder.addStatement("return $T.$N($L).subscribeOn($N)",
+                isReturnVoid() ? COMPLETABLE : SINGLE,
+                isReturnVoid() ? "fromAction" : "fromCallable",
+                daoCall(entityClass),
+                WRITE_SCHEDULER_FIELD);
     }
 
     @Override
     public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
+        if (entityClass.isReactive()) return generateReactiveRepositoryMethod(entityClass);
         MethodSpec.Builder builder = super.generateMethod();
         CodeBlock.Builder innerCode = CodeBlock.builder();
         if (getPreCode() != null) builder.addCode(this.getPreCode());
 
-        if (this.isReturnVoid())
+        if (this.isReturnVoid() && entityClass.hasWriteBehind() && getAnnotation() == Update.class)
+            // full-row updates are buffered and coalesced by id, the cached items are refreshed by the flush
             innerCode
-                    .addStatement("new $N().execute($N)",
-                            asyncTaskClassName(entityClass),
-                            this.hasParams() ? ITEM_PARAM : "");
+                    .addStatement("$N.$N($N)", WRITE_BEHIND_FIELD, batch ? "enqueueAll" : "enqueue", itemParam(batch));
+        else if (this.isReturnVoid()) {
+            if (entityClass.hasWriteBehind() && getAnnotation() == Delete.class)
+                innerCode.addStatement("$N.$N($N)", WRITE_BEHIND_FIELD, batch ? "discardAll" : "discard", itemParam(batch));
+            addWriterCall(innerCode, entityClass);
+        }
         else innerCode
                 .beginControlFlow("try")
-                .addStatement("return new $N().execute($N).get()", asyncTaskClassName(entityClass), hasParams() ? ITEM_PARAM : "")
+                .addStatement("return $N.write($L).get()", EXECUTORS_FIELD, daoCall(entityClass))
                 .nextControlFlow("catch ($T e)", ClassName.get(Throwable.class))
                 .addStatement("e.printStackTrace()")
                 .endControlFlow()
-                .addStatement("return null");
+                .addStatement("return $L", getReturnType().isPrimitive() ? FAILED_ID : "null");
 
         builder.addCode(innerCode.build());
 
         return builder;
     }
 
-    public TypeSpec.Builder generateAsyncTaskClass(EntityClass entityClass) {
-        final String asyncTaskClassName = asyncTaskClassName(entityClass);
-        String params = this.hasParams() ? "(items[0])" : "()";
-
-        MethodSpec.Builder doInBackground = MethodSpec.methodBuilder("doInBackground")
-                .addModifiers(Modifier.PROTECTED)
-                .addParameter(ArrayTypeName.of(entityClass.getTypeName()), "items").varargs()
-                .addAnnotation(Override.class);
-
-        if (this.isReturnVoid())
-            doInBackground.addStatement(entityClass.getDaoClassName().toLowerCase() + "." + this.getMethodName() + params)
-                    .addStatement("return null");
-        else
-            doInBackground.addStatement("return " + entityClass.getDaoClassName().toLowerCase() + "." + this.getMethodName() + params);
-
-        doInBackground.returns(this.getReturnType());
-
-        TypeSpec.Builder asyncTask = TypeSpec.classBuilder(asyncTaskClassName)
-                .superclass(getAsyncTaskType())
-                .addMethod(doInBackground.build());
-
-        return asyncTask;
-
+    @Override
+    public MethodSpec.Builder generateRepositoryAsyncMethod(EntityClass entityClass) {
+        MethodSpec.Builder builder = generateAsyncMethod();
+        if (getPreCode() != null) builder.addCode(this.getPreCode());
+        builder.addStatement("$N.write($L, $N)", EXECUTORS_FIELD, daoCall(entityClass), CALLBACK_PARAM);
+        return builder;
     }
 
     @Override
     public MethodSpec.Builder generateViewModelMethod(EntityClass entityClass) {
         MethodSpec.Builder builder =  super.generateMethod();
+        if (entityClass.isReactive()) builder.returns(getReactiveType());
         CodeBlock.Builder innerCode = CodeBlock.builder();
         innerCode.addStatement("$N $N.$N($N)",
-                this.isReturnVoid()?"":"return",
+                this.isReturnVoid() && !entityClass.isReactive() ? "" : "return",
                 entityClass.getRepositoryClassName().toLowerCase(),
                 this.getMethodName(),
-                this.hasParams() ? ITEM_PARAM : "");
+                this.hasParams() ? itemParam(batch) : "");
 
         builder.addCode(innerCode.build());
         return builder;
     }
 
-}
\ No newline at end of file
+    @Override
+    public MethodSpec.Builder generateViewModelAsyncMethod(EntityClass entityClass) {
+        MethodSpec.Builder builder = generateAsyncMethod();
+        builder.addStatement("$N.$N($N$N)",
+                entityClass.getRepositoryClassName().toLowerCase(),
+                this.getAsyncMethodName(),
+                this.hasParams() ? itemParam(batch) + ", " : "",
+                CALLBACK_PARAM);
+        return builder;
+    }
+
+}
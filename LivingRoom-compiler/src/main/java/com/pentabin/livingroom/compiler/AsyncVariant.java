@@ -0,0 +1,20 @@
+package com.pentabin.livingroom.compiler;
+
+import com.squareup.javapoet.MethodSpec;
+
+/**
+ * A method with an async variant: methodNameAsync(params..., callback) in the Repository and the ViewModel,
+ * the result is delivered to a ResultCallback.
+ * Implemented by the methods that can block the caller, the writes returning a value and the keyset queries.
+ */
+interface AsyncVariant {
+
+    /**
+     * @return false if this method does not block the caller, and so needs no async variant
+     */
+    boolean hasAsyncVariant();
+
+    MethodSpec.Builder generateRepositoryAsyncMethod(EntityClass entityClass);
+
+    MethodSpec.Builder generateViewModelAsyncMethod(EntityClass entityClass);
+}
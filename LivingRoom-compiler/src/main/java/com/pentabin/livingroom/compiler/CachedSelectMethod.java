@@ -0,0 +1,28 @@
+package com.pentabin.livingroom.compiler;
+
+import com.squareup.javapoet.MethodSpec;
+
+import static com.pentabin.livingroom.compiler.EntityClass.ENTITY_CACHE_FIELD;
+
+/**
+ * getById(id) of an entity marked with @Cacheable: the Repository reads the item through its EntityCache.
+ */
+public class CachedSelectMethod extends SelectMethod {
+
+    CachedSelectMethod(SelectMethod select) {
+        super(select.getMethodName(), select.getWhere(), select.getEntityClass(), null, false);
+        select.getParams().forEach((k, v) -> this.addParam(v, k));
+    }
+
+    // Example: return entityCache.get(id)
+    @Override
+    public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
+        return super.generateMethod()
+                .addStatement("return $N.get($N)", ENTITY_CACHE_FIELD, getParametersString());
+    }
+
+    @Override
+    boolean isMemoized() {
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package com.pentabin.livingroom.compiler;
+
+import com.pentabin.livingroom.annotations.LivingRoomConfig;
+import com.squareup.javapoet.TypeName;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * The settings of the generated database given by @LivingRoomConfig, or the defaults without it.
+ */
+class DatabaseConfig {
+    private static final String DEFAULT_NAME = "custom_database";
+
+    private final Element element;
+    private final String name;
+    private final int version;
+    private final boolean fallbackToDestructiveMigration;
+    private final LivingRoomConfig.JournalMode journalMode;
+    private final TypeName queryExecutor;
+    private final TypeName transactionExecutor;
+    private final long mmapSize;
+    private final int cacheSize;
+    private final boolean multiInstanceInvalidation;
+
+    private DatabaseConfig(Element element, LivingRoomConfig config, TypeName queryExecutor,
+                           TypeName transactionExecutor) {
+        this.element = element;
+        this.name = config != null ? config.name() : DEFAULT_NAME;
+        this.version = config != null ? config.version() : 1;
+        this.fallbackToDestructiveMigration = config != null && config.fallbackToDestructiveMigration();
+        this.journalMode = config != null ? config.journalMode() : LivingRoomConfig.JournalMode.AUTOMATIC;
+        this.queryExecutor = queryExecutor;
+        this.transactionExecutor = transactionExecutor;
+        this.mmapSize = config != null ? config.mmapSize() : -1;
+        this.cacheSize = config != null ? config.cacheSize() : 0;
+        this.multiInstanceInvalidation = config != null && config.multiInstanceInvalidation();
+    }
+
+    static DatabaseConfig defaults() {
+        return new DatabaseConfig(null, null, null, null);
+    }
+
+    /**
+     * Reads the annotation of the element, the errors are reported on the element.
+     */
+    static DatabaseConfig of(Element element, Messager messager) {
+        LivingRoomConfig config = element.getAnnotation(LivingRoomConfig.class);
+        if (config.name().trim().isEmpty())
+            messager.printMessage(Diagnostic.Kind.ERROR, "The name of @LivingRoomConfig must not be empty", element);
+        if (config.version() < 1)
+            messager.printMessage(Diagnostic.Kind.ERROR, "The version of @LivingRoomConfig must be positive", element);
+        if (config.mmapSize() < -1)
+            messager.printMessage(Diagnostic.Kind.ERROR, "The mmapSize of @LivingRoomConfig must be -1 or positive", element);
+        return new DatabaseConfig(element, config,
+                executor(config::queryExecutor, "queryExecutor", element, messager),
+                executor(config::transactionExecutor, "transactionExecutor", element, messager));
+    }
+
+    // The Class members are not loaded by the compiler, they are read from the MirroredTypeException.
+    // Returns null for Executor.class, the default executor
+    private static TypeName executor(Supplier<Class<?>> member, String memberName, Element element, Messager messager) {
+        TypeMirror type;
+        try {
+            Class<?> loaded = member.get();
+            return loaded == Executor.class ? null : TypeName.get(loaded);
+        } catch (MirroredTypeException e) {
+            type = e.getTypeMirror();
+        }
+        TypeElement executor = (TypeElement) ((DeclaredType) type).asElement();
+        if (executor.getQualifiedName().contentEquals(Executor.class.getCanonicalName())) return null;
+
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(executor.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC))
+                hasConstructor = true;
+        }
+        if (executor.getKind() != ElementKind.CLASS || executor.getModifiers().contains(Modifier.ABSTRACT)
+                || !hasConstructor)
+            messager.printMessage(Diagnostic.Kind.ERROR, "The " + memberName + " of @LivingRoomConfig must be "
+                    + "a concrete class with a public no-arg constructor", element);
+        return TypeName.get(type);
+    }
+
+    Element getElement() {
+        return element;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    boolean isFallbackToDestructiveMigration() {
+        return fallbackToDestructiveMigration;
+    }
+
+    LivingRoomConfig.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    // null for the executor of LivingRoomExecutors
+    TypeName getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    // null for the executor of Room
+    TypeName getTransactionExecutor() {
+        return transactionExecutor;
+    }
+
+    long getMmapSize() {
+        return mmapSize;
+    }
+
+    int getCacheSize() {
+        return cacheSize;
+    }
+
+    boolean hasPragmas() {
+        return mmapSize >= 0 || cacheSize != 0;
+    }
+
+    boolean isMultiInstanceInvalidation() {
+        return multiInstanceInvalidation;
+    }
+}
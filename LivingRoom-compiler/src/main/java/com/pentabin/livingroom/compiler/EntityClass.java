@@ -1,18 +1,37 @@
 package com.pentabin.livingroom.compiler;
 
 import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Update;
 
+import com.pentabin.livingroom.annotations.Reactive;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 
 import static com.pentabin.livingroom.compiler.LivingRoomProcessor.dbClassName;
 
@@ -20,6 +39,22 @@ class EntityClass {
     private static final String SUFFIX_DAO = "Dao";
     private static final String SUFFIX_REPO = "Repository";
     private static final String SUFFIX_VM = "ViewModel";
+    private static final String SUFFIX_DIFF_CALLBACK = "DiffCallback";
+    private static final String SUFFIX_LIST_ADAPTER = "ListAdapter";
+    private static final String RECYCLER_VIEW_PACKAGE = "androidx.recyclerview.widget";
+    static final String EXECUTORS_FIELD = "executors";
+    static final String WRITE_BEHIND_FIELD = "writeBehind";
+    static final String ENTITY_CACHE_FIELD = "entityCache";
+    static final String LOAD_BY_ID = "loadById";
+    static final String INSERT_IF_ABSENT = "insertIfAbsent";
+    static final String UPDATE_EXISTING = "updateExisting";
+    static final String LOAD_CREATED_AT = "loadCreatedAt";
+    static final String UPSERT_AT = "upsertAt";
+    static final String WRITE_SCHEDULER_FIELD = "writeScheduler";
+    static final String RX_PACKAGE = "io.reactivex";
+    static final String PURGE_ARCHIVED = "purgeArchived";
+    static final String PURGE_EXPIRED = "purgeExpired";
+    private static final String FLUSH = "flush";
 
     private String packageName;
     private final String name;
@@ -29,6 +64,17 @@ class EntityClass {
     private final String repositoryClassName;
     private final String viewModelClassName;
     private final Set<LivingroomMethod> methodsSet;
+    private boolean writeBehind;
+    private long writeBehindWindowMillis;
+    private int writeBehindMaxItems;
+    private boolean diffable;
+    private int cacheSize;
+    private boolean purgeArchived;
+    private boolean purgeExpired;
+    private FtsTable ftsTable;
+    private boolean upsertable;
+    private final boolean millisTimestamps;
+    private final boolean reactive;
 
     public EntityClass(TypeElement entityClass) {
         this.typeElement = entityClass;
@@ -42,9 +88,12 @@ class EntityClass {
             this.packageName = entityClass.getQualifiedName().toString().substring(0, lastDot);
         }
         methodsSet = new HashSet<>();
+        this.millisTimestamps = LivingRoomProcessor.BASIC_MILLIS_ENTITY
+                .equals(LivingRoomProcessor.findBasicEntity(entityClass));
+        this.reactive = entityClass.getAnnotation(Reactive.class) != null;
     }
 
-    private String getPackageName() {
+    String getPackageName() {
         return packageName;
     }
 
@@ -84,6 +133,127 @@ class EntityClass {
         methodsSet.addAll(method);
     }
 
+    // Unlike addMethod, an existing method with the same name is overridden
+    void replaceMethod(LivingroomMethod method) {
+        methodsSet.remove(method);
+        methodsSet.add(method);
+    }
+
+    List<SelectMethod> getSelectMethods() {
+        List<SelectMethod> list = new ArrayList<>();
+        for (LivingroomMethod m: this.getMethodsSet()) {
+            if (m instanceof SelectMethod) list.add((SelectMethod) m);
+        }
+        return list;
+    }
+
+    List<TypeSpec> generateProjectionClasses() {
+        Map<ClassName, TypeSpec> projections = new LinkedHashMap<>();
+        for (SelectMethod m: getSelectMethods()) {
+            Projection projection = m.getProjection();
+            if (projection != null && !projections.containsKey(projection.getClassName()))
+                projections.put(projection.getClassName(), projection.generateClass());
+        }
+        return new ArrayList<>(projections.values());
+    }
+
+    void setWriteBehind(long windowMillis, int maxItems) {
+        this.writeBehind = true;
+        this.writeBehindWindowMillis = windowMillis;
+        this.writeBehindMaxItems = maxItems;
+    }
+
+    boolean hasWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * The pending updates are written with a batch full-row update, updateAll or archiveAll.
+     * @return the name of the Dao method, null if the entity has none
+     */
+    String getWriteBehindFlushMethod() {
+        if (methodsSet.contains(LivingroomMethod.of(this, LivingroomMethod.UPDATE_ALL)))
+            return LivingroomMethod.UPDATE_ALL;
+        for (LivingroomMethod m: this.getMethodsSet()) {
+            if (m instanceof AsyncMethod && ((AsyncMethod) m).isBatch() && m.getAnnotation() == Update.class)
+                return m.getMethodName();
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the entity extends BasicMillisEntity, its timestamps are primitive longs instead of Dates
+     */
+    boolean hasMillisTimestamps() {
+        return millisTimestamps;
+    }
+
+    // Example: Date, or long for a BasicMillisEntity
+    TypeName getTimestampType() {
+        return millisTimestamps ? TypeName.LONG : ClassName.get(Date.class);
+    }
+
+    // Example: new Date(LivingRoomClock.getInstance().currentTimeMillis())
+    CodeBlock currentTimestamp() {
+        CodeBlock millis = CodeBlock.of("$T.getInstance().currentTimeMillis()",
+                ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "LivingRoomClock"));
+        return millisTimestamps ? millis : CodeBlock.of("new $T($L)", Date.class, millis);
+    }
+
+    /**
+     * @return true if the entity is marked with @Reactive, its methods return RxJava types instead of LiveData
+     */
+    boolean isReactive() {
+        return reactive;
+    }
+
+    /**
+     * Adds the Dao methods deleting a chunk of the archived or of the expired items, called by the purge of the database.
+     */
+    void setRetention(boolean purgeArchived, boolean purgeExpired) {
+        this.purgeArchived = purgeArchived;
+        this.purgeExpired = purgeExpired;
+    }
+
+    /**
+     * Adds search(query) on the FTS table indexing the @Searchable fields.
+     */
+    void setFtsTable(FtsTable ftsTable) {
+        this.ftsTable = ftsTable;
+        replaceMethod(new SearchMethod(this, ftsTable));
+    }
+
+    // null if the entity has no @Searchable field
+    FtsTable getFtsTable() {
+        return ftsTable;
+    }
+
+    /**
+     * Adds upsert(item) and upsertAll(items), written by the Dao with its insertIfAbsent(), updateExisting()
+     * and loadCreatedAt() methods.
+     */
+    void setUpsertable() {
+        this.upsertable = true;
+        addMethod(new UpsertMethod(this, false));
+        addMethod(new UpsertMethod(this, true));
+    }
+
+    void setCacheable(int size) {
+        this.cacheSize = size;
+    }
+
+    boolean isCacheable() {
+        return cacheSize > 0;
+    }
+
+    void setDiffable() {
+        this.diffable = true;
+    }
+
+    boolean isDiffable() {
+        return diffable;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -101,11 +271,69 @@ class EntityClass {
                 .addAnnotation(Dao.class);
 
         for (LivingroomMethod m: this.getMethodsSet()) {
-            daoClass.addMethod(m.generateDaoMethod().build());
+            if (m.hasDaoMethod()) daoClass.addMethod(m.generateDaoMethod().build());
+            if (m instanceof SelectMethod && ((SelectMethod) m).isThrottled())
+                daoClass.addMethod(((SelectMethod) m).generateLoadDaoMethod());
+        }
+        if (isCacheable()) {
+            // the loader of the EntityCache, on a background thread
+            daoClass.addMethod(MethodSpec.methodBuilder(LOAD_BY_ID)
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addAnnotation(AnnotationSpec.builder(Query.class)
+                            .addMember("value", "$S", "SELECT * FROM " + this.getName() + " WHERE id = :id")
+                            .build())
+                    .returns(this.getTypeName())
+                    .addParameter(TypeName.LONG, "id")
+                    .build());
+        }
+        if (upsertable) {
+            daoClass.addMethod(MethodSpec.methodBuilder(INSERT_IF_ABSENT)
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addAnnotation(AnnotationSpec.builder(Insert.class)
+                            .addMember("onConflict", "$T.IGNORE", OnConflictStrategy.class)
+                            .build())
+                    .returns(TypeName.LONG)
+                    .addParameter(this.getTypeName(), "item")
+                    .build());
+            daoClass.addMethod(MethodSpec.methodBuilder(UPDATE_EXISTING)
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addAnnotation(Update.class)
+                    .returns(TypeName.INT)
+                    .addParameter(this.getTypeName(), "item")
+                    .build());
+            daoClass.addMethod(MethodSpec.methodBuilder(LOAD_CREATED_AT)
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addAnnotation(AnnotationSpec.builder(Query.class)
+                            .addMember("value", "$S", "SELECT created_at FROM " + this.getName() + " WHERE id = :id")
+                            .build())
+                    .returns(this.getTimestampType())
+                    .addParameter(TypeName.LONG, "id")
+                    .build());
+            daoClass.addMethod(UpsertMethod.generateUpsertAtMethod(this));
         }
+        // archive() sets updated_at, the index on (isDeleted, created_at) restricts the scan to the archived items
+        if (purgeArchived)
+            daoClass.addMethod(generatePurgeMethod(PURGE_ARCHIVED, "isDeleted = 1 AND updated_at < :cutoff"));
+        if (purgeExpired)
+            daoClass.addMethod(generatePurgeMethod(PURGE_EXPIRED, "created_at < :cutoff"));
         return daoClass.build();
     }
 
+    // Example: DELETE FROM Note WHERE id IN (SELECT id FROM Note WHERE created_at < :cutoff LIMIT :limit)
+    private MethodSpec generatePurgeMethod(String methodName, String where) {
+        String query = "DELETE FROM " + this.getName() + " WHERE id IN (SELECT id FROM " + this.getName()
+                + " WHERE " + where + " LIMIT :limit)";
+        return MethodSpec.methodBuilder(methodName)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", query)
+                        .build())
+                .returns(TypeName.INT)
+                .addParameter(TypeName.LONG, "cutoff")
+                .addParameter(TypeName.INT, "limit")
+                .build();
+    }
+
     TypeSpec generateRepositoryClass() {
         final String dbField = dbClassName.toLowerCase();
 
@@ -114,32 +342,130 @@ class EntityClass {
                 .addParameter(ClassName.get("android.app", "Application"), "app")
                 .addStatement("$N = $T.getDatabase(app)", dbField, ClassName.get(this.getPackageName(), dbClassName))
                 .addStatement("$N = $N.$N()", this.getDaoClassName().toLowerCase(), dbField, this.getDaoClassName().toLowerCase())
+                .addStatement("$N = $T.getInstance()", EXECUTORS_FIELD, getExecutorsClassName())
                 .build();
 
+        if (hasWriteBehind() && isCacheable()) {
+            // the cached items are refreshed once the window is written
+            constructor = constructor.toBuilder()
+                    .addCode("$N = new $T<>($LL, $L, items -> {\n$>", WRITE_BEHIND_FIELD,
+                            getWriteBehindClassName(),
+                            writeBehindWindowMillis,
+                            writeBehindMaxItems)
+                    .addStatement("$N.$N(items)", this.getDaoClassName().toLowerCase(), getWriteBehindFlushMethod())
+                    .addStatement("$N.refreshAll(items)", ENTITY_CACHE_FIELD)
+                    .addCode("$<});\n")
+                    .build();
+        }
+        else if (hasWriteBehind()) {
+            constructor = constructor.toBuilder()
+                    .addStatement("$N = new $T<>($LL, $L, $N::$N)", WRITE_BEHIND_FIELD,
+                            getWriteBehindClassName(),
+                            writeBehindWindowMillis,
+                            writeBehindMaxItems,
+                            this.getDaoClassName().toLowerCase(),
+                            getWriteBehindFlushMethod())
+                    .build();
+        }
+
+        if (reactive) {
+            constructor = constructor.toBuilder()
+                    .addStatement("$N = $T.from($N.writer())", WRITE_SCHEDULER_FIELD,
+                            ClassName.get(RX_PACKAGE + ".schedulers", "Schedulers"), EXECUTORS_FIELD)
+                    .build();
+        }
+
+        if (isCacheable()) {
+            constructor = constructor.toBuilder()
+                    .addStatement("$N = new $T<>($L, $N::$N)", ENTITY_CACHE_FIELD,
+                            getEntityCacheClassName(),
+                            cacheSize,
+                            this.getDaoClassName().toLowerCase(),
+                            LOAD_BY_ID)
+                    .build();
+        }
+
         TypeSpec.Builder repositoryClass = TypeSpec.classBuilder(this.getRepositoryClassName())
                 .addModifiers(Modifier.PUBLIC)
                 .addField(ClassName.get(this.getPackageName(), dbClassName), dbField, Modifier.PRIVATE) // TODO package for db!
                 .addField(ClassName.get(this.getPackageName(), this.getDaoClassName()), this.getDaoClassName().toLowerCase(), Modifier.PRIVATE)
+                .addField(getExecutorsClassName(), EXECUTORS_FIELD, Modifier.PRIVATE)
                 .addMethod(constructor);
 
+        if (reactive) {
+            // the writes are serialized on the writer, like the LiveData ones
+            repositoryClass.addField(ClassName.get(RX_PACKAGE, "Scheduler"), WRITE_SCHEDULER_FIELD, Modifier.PRIVATE);
+        }
+
+        if (isCacheable()) {
+            ParameterizedTypeName cacheType = ParameterizedTypeName.get(getEntityCacheClassName(), this.getTypeName());
+            repositoryClass.addField(cacheType, ENTITY_CACHE_FIELD, Modifier.PRIVATE);
+            repositoryClass.addMethod(MethodSpec.methodBuilder("getEntityCache")
+                    .addJavadoc("The cache of getById(id), with its hit and miss counts\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(cacheType)
+                    .addStatement("return $N", ENTITY_CACHE_FIELD)
+                    .build());
+        }
+
+        if (LivingRoomProcessor.hasBasicRepository(typeElement)) {
+            repositoryClass.addSuperinterface(ParameterizedTypeName.get(
+                    ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "BasicRepository"), this.getTypeName()));
+            repositoryClass.addMethod(MethodSpec.methodBuilder("getInstance")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(Override.class)
+                    .returns(ClassName.get(this.getPackageName(), this.getRepositoryClassName()))
+                    .addParameter(ClassName.get("android.app", "Application"), "app")
+                    .addStatement("return $L(app)", getRepositoriesMethod())
+                    .build());
+        }
+
+        if (hasWriteBehind()) {
+            repositoryClass.addField(ParameterizedTypeName.get(getWriteBehindClassName(), this.getTypeName()),
+                    WRITE_BEHIND_FIELD, Modifier.PRIVATE);
+            repositoryClass.addMethod(MethodSpec.methodBuilder(FLUSH)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement("$N.$N()", WRITE_BEHIND_FIELD, FLUSH)
+                    .build());
+        }
+
         for (LivingroomMethod m: this.getMethodsSet()) {
             if (!m.hasParams())
                 repositoryClass.addField(((SelectMethod)m).getReturnType(), m.getMethodName()+"List", Modifier.PRIVATE);// TODO test if live or not????
+            else if (m instanceof SelectMethod && ((SelectMethod) m).isMemoized())
+                repositoryClass.addField(((SelectMethod) m).generateCacheField()); // one LiveData per arguments
             repositoryClass.addMethod(m.generateRepositoryMethod(this).build());
-            if (m instanceof AsyncMethod) {
-                repositoryClass.addType(
-                        ((AsyncMethod)m).generateAsyncTaskClass(this).build());
-            }
+            if (m instanceof AsyncVariant && ((AsyncVariant) m).hasAsyncVariant())
+                repositoryClass.addMethod(((AsyncVariant) m).generateRepositoryAsyncMethod(this).build());
         }
         return repositoryClass.build();
     }
 
+    // Example: LivingRoomRepositories.getNoteRepository, the shared repository
+    private CodeBlock getRepositoriesMethod() {
+        return CodeBlock.of("$T.$N",
+                ClassName.get(this.getPackageName(), LivingRoomDatabase.REPOSITORIES_CLASS_NAME),
+                LivingRoomDatabase.getRepositoryMethodName(this.getName()));
+    }
+
+    private static ClassName getEntityCacheClassName() {
+        return ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "EntityCache");
+    }
+
+    private static ClassName getWriteBehindClassName() {
+        return ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "WriteBehindQueue");
+    }
+
+    static ClassName getExecutorsClassName() {
+        return ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "LivingRoomExecutors");
+    }
+
     TypeSpec generateViewModelClass() {
         MethodSpec constructor = MethodSpec.constructorBuilder()
                 .addModifiers(Modifier.PUBLIC)
                 .addParameter(ClassName.get("android.app", "Application"), "app")
                 .addStatement("super(app)")
-                .addStatement("$N = new $T(app)", this.getRepositoryClassName().toLowerCase(), ClassName.get(this.getPackageName(), this.getRepositoryClassName()))
+                .addStatement("$N = $L(app)", this.getRepositoryClassName().toLowerCase(), getRepositoriesMethod())
                 .build();
 
         TypeSpec.Builder viewModelClass = TypeSpec.classBuilder(this.getViewModelClassName())
@@ -147,13 +473,135 @@ class EntityClass {
                 .addModifiers(Modifier.PUBLIC)
                 .addField(ClassName.get(this.getPackageName(), this.getRepositoryClassName()), this.getRepositoryClassName().toLowerCase(), Modifier.PRIVATE)
                 .addMethod(constructor);
+
+        if (hasWriteBehind()) {
+            final String repositoryField = this.getRepositoryClassName().toLowerCase();
+            viewModelClass.addMethod(MethodSpec.methodBuilder(FLUSH)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addStatement("$N.$N()", repositoryField, FLUSH)
+                    .build());
+            viewModelClass.addMethod(MethodSpec.methodBuilder("onCleared")
+                    .addModifiers(Modifier.PROTECTED)
+                    .addAnnotation(Override.class)
+                    .addStatement("$N.$N()", repositoryField, FLUSH)
+                    .addStatement("super.onCleared()")
+                    .build());
+        }
         for (LivingroomMethod m: this.getMethodsSet()) {
             if (!m.hasParams()) {
                 viewModelClass.addField(((SelectMethod)m).getReturnType(), m.getMethodName()+"List", Modifier.PRIVATE);
             }
-            viewModelClass.addMethod(m.generateViewModelMethod(this).build());
+            if (m.hasViewModelMethod()) viewModelClass.addMethod(m.generateViewModelMethod(this).build());
+            if (m instanceof AsyncVariant && ((AsyncVariant) m).hasAsyncVariant())
+                viewModelClass.addMethod(((AsyncVariant) m).generateViewModelAsyncMethod(this).build());
         }
         return viewModelClass.build();
     }
 
+    // Example: oldItem.getId() == newItem.getId()
+    TypeSpec generateDiffCallbackClass() {
+        final String oldItem = "oldItem";
+        final String newItem = "newItem";
+        MethodSpec areItemsTheSame = MethodSpec.methodBuilder("areItemsTheSame")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .returns(TypeName.BOOLEAN)
+                .addParameter(this.getTypeName(), oldItem)
+                .addParameter(this.getTypeName(), newItem)
+                .addStatement("return $N.getId() == $N.getId()", oldItem, newItem)
+                .build();
+        // every column but the id: updated_at alone is not enough, update(item) sets it on the item the list may hold
+        CodeBlock.Builder contents = CodeBlock.builder();
+        for (TypeElement type = typeElement; type != null; type = Schema.superclass(type)) {
+            for (Element field : type.getEnclosedElements()) {
+                if (!Schema.isColumn(field) || field.getSimpleName().contentEquals("id")) continue;
+                String accessor = accessor(type, field);
+                contents.add(contents.isEmpty() ? "" : "\n&& ")
+                        .add(compare(field.asType(), oldItem + "." + accessor, newItem + "." + accessor));
+            }
+        }
+        MethodSpec areContentsTheSame = MethodSpec.methodBuilder("areContentsTheSame")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .returns(TypeName.BOOLEAN)
+                .addParameter(this.getTypeName(), oldItem)
+                .addParameter(this.getTypeName(), newItem)
+                .addStatement("return $L", contents.isEmpty() ? CodeBlock.of("true") : contents.build())
+                .build();
+
+        return TypeSpec.classBuilder(getDiffCallbackClassName())
+                .addModifiers(Modifier.PUBLIC)
+                .superclass(ParameterizedTypeName.get(
+                        ClassName.get(RECYCLER_VIEW_PACKAGE, "DiffUtil", "ItemCallback"), this.getTypeName()))
+                .addMethod(areItemsTheSame)
+                .addMethod(areContentsTheSame)
+                .build();
+    }
+
+    /**
+     * Reads a column the way Room does: the field if the DiffCallback, in the package of the entity, can access it,
+     * else its getter (getTitle(), isDone() or title()).
+     * @throws IllegalArgumentException if the column has no accessible field nor getter
+     */
+    private String accessor(TypeElement type, Element field) {
+        String name = field.getSimpleName().toString();
+        Set<Modifier> modifiers = field.getModifiers();
+        boolean samePackage = ClassName.get(type).packageName().equals(getPackageName());
+        if (modifiers.contains(Modifier.PUBLIC) || (samePackage && !modifiers.contains(Modifier.PRIVATE)))
+            return name;
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        List<String> getters = Arrays.asList("get" + capitalized, "is" + capitalized, name);
+        for (TypeElement t = typeElement; t != null; t = Schema.superclass(t)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(t.getEnclosedElements())) {
+                if (method.getParameters().isEmpty() && method.getModifiers().contains(Modifier.PUBLIC)
+                        && getters.contains(method.getSimpleName().toString()))
+                    return method.getSimpleName() + "()";
+            }
+        }
+        throw new IllegalArgumentException("the column " + name + " of " + getName() + " has no public getter");
+    }
+
+    // Example: Objects.equals(oldItem.getTitle(), newItem.getTitle()), oldItem.done == newItem.done
+    private static CodeBlock compare(TypeMirror type, String oldValue, String newValue) {
+        switch (type.getKind()) {
+            case FLOAT:
+                return CodeBlock.of("$T.compare($L, $L) == 0", Float.class, oldValue, newValue);
+            case DOUBLE:
+                return CodeBlock.of("$T.compare($L, $L) == 0", Double.class, oldValue, newValue);
+            case ARRAY:
+                return CodeBlock.of("$T.equals($L, $L)", Arrays.class, oldValue, newValue);
+            default:
+                return type.getKind().isPrimitive()
+                        ? CodeBlock.of("$L == $L", oldValue, newValue)
+                        : CodeBlock.of("$T.equals($L, $L)", Objects.class, oldValue, newValue);
+        }
+    }
+
+    // Example: public abstract class NoteListAdapter<VH extends RecyclerView.ViewHolder> extends ListAdapter<Note, VH>
+    TypeSpec generateListAdapterClass() {
+        TypeVariableName viewHolder = TypeVariableName.get("VH",
+                ClassName.get(RECYCLER_VIEW_PACKAGE, "RecyclerView", "ViewHolder"));
+        ClassName differConfig = ClassName.get(RECYCLER_VIEW_PACKAGE, "AsyncDifferConfig");
+
+        MethodSpec constructor = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PROTECTED)
+                .addStatement("super(new $T.Builder<>(new $T())\n.setBackgroundThreadExecutor($T.getInstance().diskIO())\n.build())",
+                        differConfig,
+                        getDiffCallbackClassName(),
+                        getExecutorsClassName())
+                .build();
+
+        return TypeSpec.classBuilder(this.getName() + SUFFIX_LIST_ADAPTER)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addTypeVariable(viewHolder)
+                .superclass(ParameterizedTypeName.get(ClassName.get(RECYCLER_VIEW_PACKAGE, "ListAdapter"),
+                        this.getTypeName(), viewHolder))
+                .addMethod(constructor)
+                .build();
+    }
+
+    private ClassName getDiffCallbackClassName() {
+        return ClassName.get(this.getPackageName(), this.getName() + SUFFIX_DIFF_CALLBACK);
+    }
+
 }
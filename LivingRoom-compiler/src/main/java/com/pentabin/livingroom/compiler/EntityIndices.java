@@ -0,0 +1,117 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The columns and the indices Room will create for an entity,
+ * used to check that the generated queries can use an index.
+ */
+class EntityIndices {
+    private static final String PRIMARY_KEY = "id";
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*'");
+    private static final Pattern IDENTIFIER = Pattern.compile("(:?)([A-Za-z_][A-Za-z0-9_]*)");
+
+    // lower case name -> declared name, SQLite column names are case insensitive
+    private final Map<String, String> columns = new HashMap<>();
+    private final List<List<String>> indices = new ArrayList<>();
+    private final boolean inheritSuperIndices;
+
+    EntityIndices(TypeElement entity) {
+        Entity annotation = entity.getAnnotation(Entity.class);
+        this.inheritSuperIndices = annotation != null && annotation.inheritSuperIndices();
+        indices.add(Arrays.asList(PRIMARY_KEY));
+
+        TypeElement type = entity;
+        boolean inherited = false;
+        while (type != null) {
+            Entity entityAnnotation = type.getAnnotation(Entity.class);
+            boolean keepIndices = !inherited || inheritSuperIndices;
+            if (entityAnnotation != null && keepIndices) {
+                for (Index index : entityAnnotation.indices()) {
+                    indices.add(lowerCase(Arrays.asList(index.value())));
+                }
+            }
+            for (Element e : type.getEnclosedElements()) {
+                if (e.getKind() != ElementKind.FIELD
+                        || e.getModifiers().contains(Modifier.STATIC)
+                        || e.getAnnotation(Ignore.class) != null)
+                    continue;
+                ColumnInfo columnInfo = e.getAnnotation(ColumnInfo.class);
+                String column = (columnInfo != null && !columnInfo.name().equals(ColumnInfo.INHERIT_FIELD_NAME))
+                        ? columnInfo.name() : e.getSimpleName().toString();
+                columns.put(column.toLowerCase(Locale.US), column);
+                if (columnInfo != null && columnInfo.index() && keepIndices)
+                    indices.add(Arrays.asList(column.toLowerCase(Locale.US)));
+            }
+            type = superclass(type);
+            inherited = true;
+        }
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private static List<String> lowerCase(List<String> names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name.toLowerCase(Locale.US));
+        }
+        return list;
+    }
+
+    boolean inheritsSuperIndices() {
+        return inheritSuperIndices;
+    }
+
+    /**
+     * @return the columns of the entity used in a where clause, in order of appearance (parameters are ignored)
+     */
+    List<String> referencedColumns(String where) {
+        Set<String> referenced = new LinkedHashSet<>();
+        Matcher matcher = IDENTIFIER.matcher(STRING_LITERAL.matcher(where).replaceAll("''"));
+        while (matcher.find()) {
+            String name = matcher.group(2).toLowerCase(Locale.US);
+            if (matcher.group(1).isEmpty() && columns.containsKey(name))
+                referenced.add(columns.get(name));
+        }
+        return new ArrayList<>(referenced);
+    }
+
+    /**
+     * A where clause can use an index when one of its columns is the first column of an index.
+     */
+    boolean isCovered(List<String> referencedColumns) {
+        if (referencedColumns.isEmpty()) return true;
+        for (List<String> index : indices) {
+            if (!index.isEmpty() && lowerCase(referencedColumns).contains(index.get(0)))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.Query;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+
+import javax.lang.model.element.Element;
+
+import static com.pentabin.livingroom.compiler.AsyncMethod.COMPLETABLE;
+import static com.pentabin.livingroom.compiler.EntityClass.ENTITY_CACHE_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.EXECUTORS_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.WRITE_BEHIND_FIELD;
+import static com.pentabin.livingroom.compiler.EntityClass.WRITE_SCHEDULER_FIELD;
+
+/**
+ * Update of a single field of an item by its id, for a field marked with @UpdatableField.
+ * <p>
+ * Example: updateTitle(id, title) for the field title of Note, written with
+ * UPDATE Note SET title = :title, updated_at = :updated_at WHERE id = :id: the item is not read
+ * and only the column changed is written. The Dao method also takes the timestamp, read by the Repository.
+ */
+public class FieldUpdateMethod extends LivingroomMethod {
+    static final String ID_PARAM = "id";
+    private static final String UPDATED_AT_PARAM = "updated_at";
+    private static final String NOW = "now";
+
+    private final String field;
+    private final String column;
+
+    FieldUpdateMethod(EntityClass entityClass, Element field) {
+        super(entityClass, getName(field.getSimpleName().toString()));
+        this.field = field.getSimpleName().toString();
+        this.column = Schema.columnName(field);
+        this.addParam(TypeName.LONG, ID_PARAM);
+        this.addParam(TypeName.get(field.asType()), this.field);
+        this.setReturnType(TypeName.get(Void.class));
+    }
+
+    // Example: title -> updateTitle
+    static String getName(String field) {
+        return UPDATE + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+
+    String getQuery() {
+        String entity = getEntityClass().getName();
+        return "UPDATE " + entity + " SET " + column + " = :" + field + ", updated_at = :" + UPDATED_AT_PARAM
+                + " WHERE id = :" + ID_PARAM;
+    }
+
+    @Override
+    public MethodSpec.Builder generateDaoMethod() {
+        return super.generateDaoMethod()
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", getQuery())
+                        .build())
+                .addParameter(getEntityClass().getTimestampType(), UPDATED_AT_PARAM);
+    }
+
+    // Example: notedao.updateTitle(id, title, now)
+    private CodeBlock daoCall(EntityClass entityClass) {
+        return CodeBlock.of("$N.$N($N, $N, $N)", entityClass.getDaoClassName().toLowerCase(), getMethodName(),
+                ID_PARAM, field, NOW);
+    }
+
+    @Override
+    public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
+        MethodSpec.Builder builder = generateMethod()
+                .addStatement("$T $N = $L", entityClass.getTimestampType(), NOW, entityClass.currentTimestamp());
+        if (entityClass.isReactive())
+            return builder.returns(COMPLETABLE)
+                    .addStatement("return $T.fromAction(() -> $L).subscribeOn($N)", COMPLETABLE, daoCall(entityClass),
+                            WRITE_SCHEDULER_FIELD);
+        if (entityClass.hasWriteBehind())
+            // the pending full-row update of the item is written first, it must not override the field
+            builder.addStatement("$N.flush()", WRITE_BEHIND_FIELD);
+        if (entityClass.isCacheable())
+            // the cached item is reloaded once the field is written
+            return builder
+                    .addCode("$N.writer().execute(() -> {\n$>", EXECUTORS_FIELD)
+                    .addStatement("$L", daoCall(entityClass))
+                    .addStatement("$N.reload($N)", ENTITY_CACHE_FIELD, ID_PARAM)
+                    .addCode("$<});\n");
+        return builder.addStatement("$N.writer().execute(() -> $L)", EXECUTORS_FIELD, daoCall(entityClass));
+    }
+
+    @Override
+    public MethodSpec.Builder generateViewModelMethod(EntityClass entityClass) {
+        MethodSpec.Builder builder = generateMethod();
+        if (entityClass.isReactive()) builder.returns(COMPLETABLE);
+        return builder.addStatement("$L$N.$N($N, $N)",
+                entityClass.isReactive() ? "return " : "",
+                entityClass.getRepositoryClassName().toLowerCase(),
+                getMethodName(),
+                ID_PARAM,
+                field);
+    }
+}
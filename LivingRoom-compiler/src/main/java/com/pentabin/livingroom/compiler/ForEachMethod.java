@@ -0,0 +1,85 @@
+package com.pentabin.livingroom.compiler;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.WildcardTypeName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming of a select returning a list: gives all its items to an EntityConsumer, in chunks read by its keyset query,
+ * so the memory used does not depend on the number of rows.
+ * <p>
+ * Example: forEachAll(consumer) for getAll(), reading the chunks with getAllPageAfter(lastId, limit).
+ * It has no Dao method nor ViewModel method, it blocks the caller like the keyset query.
+ */
+public class ForEachMethod extends LivingroomMethod {
+    static final String PREFIX = "forEach";
+    static final String CONSUMER_PARAM = "consumer";
+    private static final String GET = "get";
+
+    private final KeysetSelectMethod keyset;
+    private final boolean projection;
+    private final List<String> selectParams = new ArrayList<>();
+
+    ForEachMethod(SelectMethod select, KeysetSelectMethod keyset) {
+        super(select.getEntityClass(), getName(select.getMethodName()));
+        this.keyset = keyset;
+        this.projection = select.getProjection() != null;
+        this.setReturnType(TypeName.INT);
+        select.getParams().forEach((k, v) -> {
+            this.addParam(v, k);
+            selectParams.add(k);
+        });
+        this.addParam(ParameterizedTypeName.get(ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "EntityConsumer"),
+                WildcardTypeName.supertypeOf(select.getResultType())), CONSUMER_PARAM);
+    }
+
+    // Example: getAll -> forEachAll, getByPriority -> forEachByPriority, archived -> forEachArchived
+    static String getName(String selectName) {
+        String name = selectName.startsWith(GET) && selectName.length() > GET.length()
+                && Character.isUpperCase(selectName.charAt(GET.length()))
+                ? selectName.substring(GET.length()) : selectName;
+        return PREFIX + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @Override
+    boolean hasDaoMethod() {
+        return false;
+    }
+
+    // Example: return KeysetStream.forEach((lastId, limit) -> notedao.getAllPageAfter(lastId, limit), Note::getId, consumer)
+    @Override
+    public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
+        List<String> keysetParams = new ArrayList<>(selectParams);
+        keysetParams.add(KeysetSelectMethod.LAST_ID_PARAM);
+        keysetParams.add(KeysetSelectMethod.LIMIT_PARAM);
+        // the projections have a public id field, the entities its getter
+        CodeBlock key = projection ? CodeBlock.of("item -> item.id") : CodeBlock.of("$T::getId", entityClass.getTypeName());
+        return super.generateMethod()
+                .addStatement("return $T.forEach(($N, $N) -> $N.$N($L), $L, $N)",
+                        ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "KeysetStream"),
+                        KeysetSelectMethod.LAST_ID_PARAM,
+                        KeysetSelectMethod.LIMIT_PARAM,
+                        entityClass.getDaoClassName().toLowerCase(),
+                        keyset.getMethodName(),
+                        String.join(", ", keysetParams),
+                        key,
+                        CONSUMER_PARAM);
+    }
+
+    // A walk of the whole select is for the workers, it is only in the Repository
+    @Override
+    boolean hasViewModelMethod() {
+        return false;
+    }
+
+    @Override
+    public MethodSpec.Builder generateViewModelMethod(EntityClass entityClass) {
+        throw new UnsupportedOperationException(getMethodName() + " has no ViewModel method");
+    }
+}
@@ -0,0 +1,106 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+import com.pentabin.livingroom.annotations.Searchable;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The FTS4 table indexing the @Searchable fields of an entity, generated as an @Fts4 entity whose content is the entity.
+ * <p>
+ * Example: the @Searchable fields title and content of Note generate NoteFts with the same two fields.
+ * The rowid of NoteFts is the id of Note, and Room adds the triggers updating NoteFts when Note changes.
+ */
+class FtsTable {
+    private static final String SUFFIX = "Fts";
+
+    private final ClassName className;
+    private final ClassName entityClassName;
+    private final String contentTable;
+    // column -> field, from the base class to the entity
+    private final Map<String, String> columns = new LinkedHashMap<>();
+    private final List<Element> fields = new ArrayList<>();
+
+    private FtsTable(TypeElement entity) {
+        this.entityClassName = ClassName.get(entity);
+        this.className = ClassName.get(entityClassName.packageName(), entityClassName.simpleName() + SUFFIX);
+        this.contentTable = Schema.tableName(entity);
+
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement type = entity; type != null; type = Schema.superclass(type)) {
+            hierarchy.add(0, type);
+        }
+        for (TypeElement type : hierarchy) {
+            for (Element field : type.getEnclosedElements()) {
+                if (field.getKind() != ElementKind.FIELD || field.getAnnotation(Searchable.class) == null) continue;
+                columns.put(Schema.columnName(field), field.getSimpleName().toString());
+                fields.add(field);
+            }
+        }
+    }
+
+    /**
+     * @return the FTS table of the entity, null if it has no @Searchable field
+     */
+    static FtsTable of(TypeElement entity) {
+        FtsTable table = new FtsTable(entity);
+        return table.columns.isEmpty() ? null : table;
+    }
+
+    ClassName getClassName() {
+        return className;
+    }
+
+    String getName() {
+        return className.simpleName();
+    }
+
+    List<Element> getFields() {
+        return fields;
+    }
+
+    // The columns are copied from the content table, Room gives them the TEXT affinity of a String
+    Schema.Table toTable() {
+        Schema.Table table = new Schema.Table(getName());
+        for (String column : columns.keySet()) {
+            table.addColumn(column, "TEXT");
+        }
+        table.setContent(contentTable);
+        return table;
+    }
+
+    TypeSpec generateClass() {
+        TypeSpec.Builder builder = TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Entity.class)
+                .addAnnotation(AnnotationSpec.builder(Fts4.class)
+                        .addMember("contentEntity", "$T.class", entityClassName)
+                        .build())
+                .addJavadoc("Full-text index of the @Searchable fields of $L, kept in sync by Room\n",
+                        entityClassName.simpleName());
+        columns.forEach((column, field) -> {
+            FieldSpec.Builder fieldSpec = FieldSpec.builder(String.class, field, Modifier.PUBLIC);
+            if (!column.equals(field))
+                fieldSpec.addAnnotation(AnnotationSpec.builder(ColumnInfo.class)
+                        .addMember("name", "$S", column)
+                        .build());
+            builder.addField(fieldSpec.build());
+        });
+        return builder.build();
+    }
+}
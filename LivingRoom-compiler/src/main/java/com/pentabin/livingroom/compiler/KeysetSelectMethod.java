@@ -0,0 +1,109 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.Query;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.pentabin.livingroom.compiler.EntityClass.EXECUTORS_FIELD;
+
+/**
+ * Keyset pagination of a select: returns the next limit items whose id is greater than lastId.
+ * <p>
+ * Unlike an OFFSET, the cost of a page does not depend on its position, the query seeks the primary key.
+ * The Repository and ViewModel get a blocking method (for workers) and an async one with a callback.
+ */
+public class KeysetSelectMethod extends LivingroomMethod implements AsyncVariant {
+    static final String SUFFIX = "PageAfter";
+    static final String LAST_ID_PARAM = "lastId";
+    static final String LIMIT_PARAM = "limit";
+
+    private final String where;
+    private final String selectList;
+
+    KeysetSelectMethod(SelectMethod select) {
+        super(select.getEntityClass(), select.getMethodName() + SUFFIX);
+        this.where = select.getWhere();
+        this.selectList = select.getSelectList();
+        this.setAnnotation(Query.class);
+        this.setReturnType(ParameterizedTypeName.get(ClassName.get(List.class), select.getResultType()));
+        select.getParams().forEach((k, v) -> this.addParam(v, k));
+        this.addParam(TypeName.LONG, LAST_ID_PARAM);
+        this.addParam(TypeName.INT, LIMIT_PARAM);
+    }
+
+    String getQuery() {
+        return "SELECT " + selectList + " FROM " + getEntityClass().getName()
+                + " WHERE (" + where + ") AND id > :" + LAST_ID_PARAM
+                + " ORDER BY id LIMIT :" + LIMIT_PARAM;
+    }
+
+    @Override
+    public MethodSpec.Builder generateDaoMethod() {
+        return super.generateDaoMethod()
+                .addAnnotation(AnnotationSpec.builder(this.getAnnotation())
+                        .addMember("value", "$S", getQuery())
+                        .build());
+    }
+
+    @Override
+    public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
+        return super.generateMethod()
+                .addStatement("return $N.$N($N)",
+                        entityClass.getDaoClassName().toLowerCase(),
+                        this.getMethodName(),
+                        getParametersString());
+    }
+
+    @Override
+    public boolean hasAsyncVariant() {
+        return true;
+    }
+
+    @Override
+    public MethodSpec.Builder generateRepositoryAsyncMethod(EntityClass entityClass) {
+        return generateAsyncMethod()
+                .addStatement("$N.read(() -> $N.$N($N), $N)",
+                        EXECUTORS_FIELD,
+                        entityClass.getDaoClassName().toLowerCase(),
+                        this.getMethodName(),
+                        getParametersString(),
+                        CALLBACK_PARAM);
+    }
+
+    @Override
+    public MethodSpec.Builder generateViewModelMethod(EntityClass entityClass) {
+        return super.generateMethod()
+                .addStatement("return $N.$N($N)",
+                        entityClass.getRepositoryClassName().toLowerCase(),
+                        this.getMethodName(),
+                        getParametersString());
+    }
+
+    @Override
+    public MethodSpec.Builder generateViewModelAsyncMethod(EntityClass entityClass) {
+        return generateAsyncMethod()
+                .addStatement("$N.$N($N, $N)",
+                        entityClass.getRepositoryClassName().toLowerCase(),
+                        this.getAsyncMethodName(),
+                        getParametersString(),
+                        CALLBACK_PARAM);
+    }
+
+    private String getParametersString() {
+        StringBuilder parameters = new StringBuilder();
+        Iterator<Map.Entry<String, TypeName>> iterator = getParams().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, TypeName> entry = iterator.next();
+            parameters.append(entry.getKey()).append(iterator.hasNext() ? ", " : "");
+        }
+        return parameters.toString();
+    }
+}
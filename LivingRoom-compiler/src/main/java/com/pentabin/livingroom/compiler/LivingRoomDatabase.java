@@ -1,5 +1,318 @@
 package com.pentabin.livingroom.compiler;
 
-// TODO LivingRoomDatabase class
+import androidx.room.Database;
+import androidx.room.TypeConverters;
+
+import com.pentabin.livingroom.annotations.LivingRoomConfig;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+import static com.pentabin.livingroom.compiler.LivingRoomProcessor.RUNTIME_PACKAGE;
+import static com.pentabin.livingroom.compiler.LivingRoomProcessor.dbClassName;
+
+/**
+ * The Room database of all the LivingRoom entities, and the registry of their repositories,
+ * generated in the package of the first entity.
+ */
 class LivingRoomDatabase {
+    private static final String SUFFIX_DAO = "Dao";
+    private static final String SUFFIX_REPOSITORY = "Repository";
+    static final String REPOSITORIES_CLASS_NAME = "LivingRoomRepositories";
+    private static final String INSTANCE = "INSTANCE";
+    private static final String SCHEDULE_PURGE = "schedulePurge";
+
+    private final List<TypeElement> entities;
+    private final DatabaseConfig config;
+    private final String packageName;
+    private List<SchemaHistory.Step> migrations = new ArrayList<>();
+    private boolean exportSchema;
+
+    /**
+     * @param entities the entities sorted by qualified name, so the generated class does not depend on the build order
+     */
+    LivingRoomDatabase(List<TypeElement> entities, DatabaseConfig config) {
+        this.entities = entities;
+        this.config = config;
+        String first = entities.get(0).getQualifiedName().toString();
+        this.packageName = first.substring(0, Math.max(first.lastIndexOf('.'), 0));
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Without a schema history the database has no migration.
+     * @param migrations the steps of the history, only the migrated ones are generated
+     */
+    void setMigrations(List<SchemaHistory.Step> migrations) {
+        this.migrations = migrations;
+    }
+
+    /**
+     * Lets Room export its schema, when the application gives it a schema location.
+     */
+    void setExportSchema() {
+        this.exportSchema = true;
+    }
+
+    /**
+     * One repository per entity for the whole process, so the ViewModels of all the screens
+     * share the same cached LiveData instead of each running its own queries.
+     * get(Class, Application) gives the repositories implementing BasicRepository without reflection.
+     */
+    TypeSpec generateRepositoriesClass() {
+        ClassName application = ClassName.get("android.app", "Application");
+        ClassName livingRoomEntity = ClassName.get(RUNTIME_PACKAGE, "LivingRoomEntity");
+        ClassName basicRepository = ClassName.get(RUNTIME_PACKAGE, "BasicRepository");
+        TypeVariableName t = TypeVariableName.get("T", livingRoomEntity);
+
+        TypeSpec.Builder builder = TypeSpec.classBuilder(REPOSITORIES_CLASS_NAME)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        MethodSpec.Builder get = MethodSpec.methodBuilder("get")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "$S", "unchecked")
+                        .build())
+                .addTypeVariable(t)
+                .returns(ParameterizedTypeName.get(basicRepository, t))
+                .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), t), "entity")
+                .addParameter(application, "app");
+
+        for (TypeElement element : entities) {
+            ClassName entity = ClassName.get(element);
+            ClassName repository = ClassName.get(entity.packageName(), entity.simpleName() + SUFFIX_REPOSITORY);
+            String field = Character.toLowerCase(entity.simpleName().charAt(0)) + entity.simpleName().substring(1)
+                    + SUFFIX_REPOSITORY;
+
+            builder.addField(FieldSpec.builder(repository, field, Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE)
+                    .build());
+            builder.addMethod(MethodSpec.methodBuilder(getRepositoryMethodName(entity.simpleName()))
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(repository)
+                    .addParameter(application, "app")
+                    .beginControlFlow("if ($N == null)", field)
+                    .beginControlFlow("synchronized ($T.class)", ClassName.get(packageName, REPOSITORIES_CLASS_NAME))
+                    .beginControlFlow("if ($N == null)", field)
+                    .addStatement("$N = new $T(app)", field, repository)
+                    .endControlFlow()
+                    .endControlFlow()
+                    .endControlFlow()
+                    .addStatement("return $N", field)
+                    .build());
+
+            if (LivingRoomProcessor.hasBasicRepository(element)) {
+                get.beginControlFlow("if (entity == $T.class)", entity)
+                        .addStatement("return ($T) $N(app)", ParameterizedTypeName.get(basicRepository, t),
+                                getRepositoryMethodName(entity.simpleName()))
+                        .endControlFlow();
+            }
+        }
+        get.addStatement("throw new $T(entity.getName() + $S)", IllegalArgumentException.class,
+                " has no BasicRepository, it needs @Crudable");
+        builder.addMethod(get.build());
+
+        for (TypeElement entity : entities) {
+            builder.addOriginatingElement(entity);
+        }
+        return builder.build();
+    }
+
+    // Example: getNoteRepository
+    static String getRepositoryMethodName(String entityName) {
+        return "get" + entityName + SUFFIX_REPOSITORY;
+    }
+
+    TypeSpec generateClass() {
+        ClassName dbClass = ClassName.get(packageName, dbClassName);
+        CodeBlock.Builder listEntities = CodeBlock.builder().add("{");
+        List<MethodSpec> listDaoMethods = new ArrayList<>();
+
+        for (int i = 0; i < entities.size(); i++) {
+            ClassName entity = ClassName.get(entities.get(i));
+            listEntities.add(i == 0 ? "$T.class" : ", $T.class", entity);
+            FtsTable ftsTable = FtsTable.of(entities.get(i));
+            if (ftsTable != null) listEntities.add(", $T.class", ftsTable.getClassName());
+            listDaoMethods.add(
+                    MethodSpec.methodBuilder((entity.simpleName() + SUFFIX_DAO).toLowerCase())
+                            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                            .returns(ClassName.get(entity.packageName(), entity.simpleName() + SUFFIX_DAO))
+                            .build());
+        }
+        listEntities.add("}");
+
+        FieldSpec instance = FieldSpec.builder(dbClass, INSTANCE)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE).build();
+
+        MethodSpec getDatabase = MethodSpec.methodBuilder("getDatabase")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(ClassName.get("android.content",
+                        "Context"),
+                        "context",
+                        Modifier.FINAL)
+                .beginControlFlow("if ($N == null)", INSTANCE)
+                .beginControlFlow("synchronized ($T.class)", dbClass)
+                .beginControlFlow("if ($N == null)", INSTANCE)
+                .addCode(buildDatabase(dbClass))
+                .endControlFlow()
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return $N", INSTANCE)
+                .returns(dbClass)
+                .build();
+
+        TypeSpec.Builder builder = TypeSpec.classBuilder(dbClassName)
+                .superclass(ClassName.get("androidx.room", "RoomDatabase"))
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Database.class)
+                        .addMember("entities", listEntities.build())
+                        .addMember("version", "$L", config.getVersion())
+                        .addMember("exportSchema", "$L", exportSchema)
+                        .build())
+                .addAnnotation(AnnotationSpec.builder(TypeConverters.class)
+                        .addMember("value", "$T.class", ClassName.get(RUNTIME_PACKAGE, "DateConverter"))
+                        .build())
+                .addField(instance)
+                .addFields(generateMigrationFields())
+                .addMethods(listDaoMethods)
+                .addMethods(generatePurgeMethods())
+                .addMethod(getDatabase);
+
+        // the database depends on every entity, and on the configuration
+        for (TypeElement entity : entities) {
+            builder.addOriginatingElement(entity);
+        }
+        if (config.getElement() != null) builder.addOriginatingElement(config.getElement());
+        return builder.build();
+    }
+
+    // Example: INSTANCE = Room.databaseBuilder(context.getApplicationContext(), LivingRoomDatabase.class, "custom_database")...build();
+    private CodeBlock buildDatabase(ClassName dbClass) {
+        CodeBlock.Builder code = CodeBlock.builder()
+                .add("$N = $T.databaseBuilder(context.getApplicationContext(), $T.class, $S)\n",
+                        INSTANCE, ClassName.get("androidx.room", "Room"), dbClass, config.getName())
+                .indent().indent();
+        if (config.getQueryExecutor() != null)
+            code.add(".setQueryExecutor(new $T())\n", config.getQueryExecutor());
+        else
+            code.add(".setQueryExecutor($T.getInstance().diskIO())\n", EntityClass.getExecutorsClassName());
+        if (config.getTransactionExecutor() != null)
+            code.add(".setTransactionExecutor(new $T())\n", config.getTransactionExecutor());
+        if (config.getJournalMode() != LivingRoomConfig.JournalMode.AUTOMATIC)
+            code.add(".setJournalMode($T.$L)\n", ClassName.get("androidx.room", "RoomDatabase", "JournalMode"),
+                    config.getJournalMode().name());
+        if (config.isMultiInstanceInvalidation())
+            code.add(".enableMultiInstanceInvalidation()\n");
+        if (config.hasPragmas())
+            code.add(".addCallback($L)\n", generatePragmasCallback());
+        List<String> migrationFields = new ArrayList<>();
+        for (SchemaHistory.Step step : migrations) {
+            if (step.isMigrated()) migrationFields.add(getMigrationFieldName(step));
+        }
+        if (!migrationFields.isEmpty())
+            code.add(".addMigrations($L)\n", String.join(", ", migrationFields));
+        // only on request: the versions without a migration, such as a removed column, start again from an empty database
+        if (config.isFallbackToDestructiveMigration())
+            code.add(".fallbackToDestructiveMigration()\n");
+        code.add(".build();\n")
+                .unindent().unindent();
+        if (hasRetention())
+            code.addStatement("$N.$N()", INSTANCE, SCHEDULE_PURGE);
+        return code.build();
+    }
+
+    private boolean hasRetention() {
+        for (TypeElement entity : entities) {
+            if (LivingRoomProcessor.archiveRetentionMillis(entity) > 0 || LivingRoomProcessor.expiryMillis(entity) > 0)
+                return true;
+        }
+        return false;
+    }
+
+    // The purge runs when the database is created, the application can run it again, for example once a day.
+    // Example: RetentionPurge.schedule(this, (now, limit) -> notedao().purgeArchived(now - 2592000000L, limit));
+    private List<MethodSpec> generatePurgeMethods() {
+        List<MethodSpec> methods = new ArrayList<>();
+        if (!hasRetention()) return methods;
+        List<CodeBlock> steps = new ArrayList<>();
+        for (TypeElement entity : entities) {
+            String dao = (entity.getSimpleName() + SUFFIX_DAO).toLowerCase();
+            long archiveRetention = LivingRoomProcessor.archiveRetentionMillis(entity);
+            if (archiveRetention > 0)
+                steps.add(CodeBlock.of("(now, limit) -> $N().$N(now - $LL, limit)",
+                        dao, EntityClass.PURGE_ARCHIVED, archiveRetention));
+            long expiry = LivingRoomProcessor.expiryMillis(entity);
+            if (expiry > 0)
+                steps.add(CodeBlock.of("(now, limit) -> $N().$N(now - $LL, limit)",
+                        dao, EntityClass.PURGE_EXPIRED, expiry));
+        }
+        methods.add(MethodSpec.methodBuilder(SCHEDULE_PURGE)
+                .addJavadoc("Deletes the archived and the expired items in the background, in chunks.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("$T.schedule(this,\n$>$L)$<", ClassName.get(RUNTIME_PACKAGE, "RetentionPurge"),
+                        CodeBlock.join(steps, ",\n"))
+                .build());
+        return methods;
+    }
+
+    // Example: MIGRATION_1_2
+    private static String getMigrationFieldName(SchemaHistory.Step step) {
+        return "MIGRATION_" + step.from + "_" + step.to;
+    }
+
+    // Example: public static final Migration MIGRATION_1_2 = new Migration(1, 2) {...}
+    private List<FieldSpec> generateMigrationFields() {
+        ClassName migration = ClassName.get("androidx.room.migration", "Migration");
+        List<FieldSpec> fields = new ArrayList<>();
+        for (SchemaHistory.Step step : migrations) {
+            if (!step.isMigrated()) continue;
+            MethodSpec.Builder migrate = MethodSpec.methodBuilder("migrate")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(ClassName.get("androidx.sqlite.db", "SupportSQLiteDatabase"), "db");
+            for (String statement : step.statements) {
+                migrate.addStatement("db.execSQL($S)", statement);
+            }
+            TypeSpec anonymous = TypeSpec.anonymousClassBuilder("$L, $L", step.from, step.to)
+                    .superclass(migration)
+                    .addMethod(migrate.build())
+                    .build();
+            fields.add(FieldSpec.builder(migration, getMigrationFieldName(step),
+                    Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$L", anonymous)
+                    .build());
+        }
+        return fields;
+    }
+
+    // Example: Pragmas.run(db, "PRAGMA mmap_size = 268435456")
+    private TypeSpec generatePragmasCallback() {
+        ClassName pragmas = ClassName.get(RUNTIME_PACKAGE, "Pragmas");
+        MethodSpec.Builder onOpen = MethodSpec.methodBuilder("onOpen")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ClassName.get("androidx.sqlite.db", "SupportSQLiteDatabase"), "db");
+        if (config.getMmapSize() >= 0)
+            onOpen.addStatement("$T.run(db, $S)", pragmas, "PRAGMA mmap_size = " + config.getMmapSize());
+        if (config.getCacheSize() != 0)
+            onOpen.addStatement("$T.run(db, $S)", pragmas, "PRAGMA cache_size = " + config.getCacheSize());
+        return TypeSpec.anonymousClassBuilder("")
+                .superclass(ClassName.get("androidx.room", "RoomDatabase", "Callback"))
+                .addMethod(onOpen.build())
+                .build();
+    }
 }
@@ -0,0 +1,162 @@
+package com.pentabin.livingroom.compiler;
+
+import com.pentabin.livingroom.annotations.LivingRoomConfig;
+import com.squareup.javapoet.JavaFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the LivingRoomDatabase listing all the entities, configured by @LivingRoomConfig,
+ * and the LivingRoomRepositories registry.
+ * <p>
+ * It is separated from {@link LivingRoomProcessor} because these are the only aggregating outputs:
+ * the per-entity classes are isolating, so Gradle only regenerates the classes of the entities that changed.
+ * They are generated in the first round with entities, Room has to process the database in a later round.
+ */
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class LivingRoomDatabaseProcessor extends AbstractProcessor {
+
+    // the directory of the schema history, an option of its own: the room.schemaLocation of Room does not enable it
+    static final String SCHEMA_LOCATION_OPTION = "livingroom.schemaLocation";
+    // the option of Room, the database exports its schema when it is set
+    static final String ROOM_SCHEMA_LOCATION_OPTION = "room.schemaLocation";
+
+    private boolean generated;
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new LinkedHashSet<>(Arrays.asList(SCHEMA_LOCATION_OPTION, ROOM_SCHEMA_LOCATION_OPTION));
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : LivingRoomProcessor.ENTITY_ANNOTATIONS) {
+            types.add(annotation.getCanonicalName());
+        }
+        types.add(LivingRoomConfig.class.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> set, RoundEnvironment env) {
+        if (generated) return false;
+
+        Set<TypeElement> entities = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : LivingRoomProcessor.ENTITY_ANNOTATIONS) {
+            for (Element e : env.getElementsAnnotatedWith(annotation)) {
+                if (e.getKind() == ElementKind.CLASS) entities.add((TypeElement) e);
+            }
+        }
+        if (entities.isEmpty()) return false;
+
+        List<TypeElement> sorted = new ArrayList<>(entities);
+        sorted.sort(Comparator.comparing(e -> e.getQualifiedName().toString()));
+        DatabaseConfig config = readConfig(env);
+        LivingRoomDatabase database = new LivingRoomDatabase(sorted, config);
+        String schemaLocation = processingEnv.getOptions().get(SCHEMA_LOCATION_OPTION);
+        if (schemaLocation != null) updateSchema(database, config, sorted, new File(schemaLocation));
+        if (processingEnv.getOptions().containsKey(ROOM_SCHEMA_LOCATION_OPTION)) database.setExportSchema();
+        try {
+            JavaFile.builder(database.getPackageName(), database.generateClass())
+                    .build()
+                    .writeTo(processingEnv.getFiler());
+            JavaFile.builder(database.getPackageName(), database.generateRepositoriesClass())
+                    .build()
+                    .writeTo(processingEnv.getFiler());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not generate " + LivingRoomProcessor.dbClassName + ": " + e.getMessage());
+        }
+        generated = true;
+        return false;
+    }
+
+    /**
+     * Saves the schema of the entities as the version of @LivingRoomConfig, or checks it against the saved one,
+     * and gives the database the migrations of the history.
+     * The history is read when the database is regenerated, that is when an entity changes.
+     */
+    private void updateSchema(LivingRoomDatabase database, DatabaseConfig config, List<TypeElement> entities,
+                              File schemaLocation) {
+        String dbName = LivingRoomProcessor.dbClassName;
+        int version = config.getVersion();
+        Schema schema = new Schema();
+        try {
+            for (TypeElement entity : entities) {
+                schema.addTable(Schema.tableOf(entity));
+                FtsTable ftsTable = FtsTable.of(entity);
+                if (ftsTable != null) schema.addTable(ftsTable.toTable());
+            }
+        } catch (IllegalArgumentException e) {
+            // without the whole schema the migrations would be wrong, the database gets none
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "The schema history of " + dbName + " is not updated and no migration is generated, "
+                            + e.getMessage());
+            return;
+        }
+        try {
+            SchemaHistory history = new SchemaHistory(schemaLocation);
+            if (version < history.getVersion()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "The version " + version + " of " + dbName + " is older than the saved version "
+                                + history.getVersion() + ", set it in @LivingRoomConfig(version)", config.getElement());
+                return;
+            }
+            if (!history.save(version, schema)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "The entities no longer match the saved schema of version " + version + " of " + dbName
+                                + ": increase @LivingRoomConfig(version), or delete " + SchemaHistory.DIRECTORY + "/"
+                                + version + ".schema if this version was never released", config.getElement());
+                return;
+            }
+            // without the fallback Room fails to open a database it cannot migrate, it is never cleared silently
+            boolean fallback = config.isFallbackToDestructiveMigration();
+            for (SchemaHistory.Step step : history.getSteps()) {
+                if (!step.isMigrated())
+                    processingEnv.getMessager().printMessage(fallback ? Diagnostic.Kind.WARNING : Diagnostic.Kind.ERROR,
+                            "No migration from version " + step.from + " to " + step.to + " of " + dbName + ": "
+                                    + String.join(", ", step.problems)
+                                    + (fallback ? ", the upgrade clears the database"
+                                    : ", set @LivingRoomConfig(fallbackToDestructiveMigration = true) to clear the database on upgrade"),
+                            config.getElement());
+            }
+            if (!fallback && history.getFirstVersion() > 1)
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "The versions of " + dbName + " before " + history.getFirstVersion()
+                                + " are not in the schema history, Room fails to open their databases on upgrade",
+                        config.getElement());
+            database.setMigrations(history.getSteps());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not update the schema history of " + dbName + ": " + e.getMessage());
+        }
+    }
+
+    private DatabaseConfig readConfig(RoundEnvironment env) {
+        List<Element> configs = new ArrayList<>(env.getElementsAnnotatedWith(LivingRoomConfig.class));
+        if (configs.isEmpty()) return DatabaseConfig.defaults();
+        for (Element duplicate : configs.subList(1, configs.size())) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@LivingRoomConfig is already declared on " + configs.get(0), duplicate);
+        }
+        return DatabaseConfig.of(configs.get(0), processingEnv.getMessager());
+    }
+}
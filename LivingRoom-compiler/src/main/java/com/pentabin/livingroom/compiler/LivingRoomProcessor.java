@@ -1,28 +1,30 @@
 package com.pentabin.livingroom.compiler;
 
-import androidx.room.Database;
 import androidx.room.Entity;
-import androidx.room.TypeConverters;
 
 import com.pentabin.livingroom.annotations.Archivable;
+import com.pentabin.livingroom.annotations.Cacheable;
 import com.pentabin.livingroom.annotations.Crudable;
 import com.pentabin.livingroom.annotations.Deletable;
+import com.pentabin.livingroom.annotations.Diffable;
+import com.pentabin.livingroom.annotations.Expirable;
 import com.pentabin.livingroom.annotations.Insertable;
+import com.pentabin.livingroom.annotations.Reactive;
+import com.pentabin.livingroom.annotations.Searchable;
 import com.pentabin.livingroom.annotations.SelectableAll;
 import com.pentabin.livingroom.annotations.SelectableById;
 import com.pentabin.livingroom.annotations.SelectableWhere;
 import com.pentabin.livingroom.annotations.SelectableWheres;
 import com.pentabin.livingroom.annotations.Updatable;
-import com.squareup.javapoet.AnnotationSpec;
-import com.squareup.javapoet.ClassName;
-import com.squareup.javapoet.FieldSpec;
+import com.pentabin.livingroom.annotations.UpdatableField;
+import com.pentabin.livingroom.annotations.Upsertable;
+import com.pentabin.livingroom.annotations.WriteBehind;
 import com.squareup.javapoet.JavaFile;
-import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -30,7 +32,6 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
-import javax.annotation.processing.Filer;
 import javax.annotation.processing.FilerException;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
@@ -38,9 +39,10 @@ import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
-import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
 
 import static com.pentabin.livingroom.compiler.LivingroomMethod.GET_ALL;
@@ -57,26 +59,95 @@ import static com.pentabin.livingroom.compiler.LivingroomMethod.selectWhereMetho
                 "com.pentabin.livingroom.annotations.Insertable",
                 "com.pentabin.livingroom.annotations.Deletable",
                 "com.pentabin.livingroom.annotations.Updatable",
+                "com.pentabin.livingroom.annotations.Upsertable",
+                "com.pentabin.livingroom.annotations.UpdatableField",
                 "com.pentabin.livingroom.annotations.Archivable",
                 "com.pentabin.livingroom.annotations.SelectableAll",
                 "com.pentabin.livingroom.annotations.SelectableById",
                 "com.pentabin.livingroom.annotations.SelectableWhere",
                 "com.pentabin.livingroom.annotations.SelectableWheres",
+                "com.pentabin.livingroom.annotations.WriteBehind",
+                "com.pentabin.livingroom.annotations.Diffable",
+                "com.pentabin.livingroom.annotations.Cacheable",
+                "com.pentabin.livingroom.annotations.Expirable",
+                "com.pentabin.livingroom.annotations.Searchable",
+                "com.pentabin.livingroom.annotations.Reactive",
         })
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class LivingRoomProcessor extends AbstractProcessor {
 
-    private List<TypeName> entities;
     private HashMap<TypeElement, EntityClass> entitiesList;
-    private static  String packageName; //TODO from the database class maybe?
-    private static final String SUFFIX_DAO = "Dao"; // Todo remove
     static final String dbClassName = "LivingRoomDatabase";
+    static final String RUNTIME_PACKAGE = "com.pentabin.livingroom";
+    static final String BASIC_ENTITY = RUNTIME_PACKAGE + ".BasicEntity";
+    static final String BASIC_MILLIS_ENTITY = RUNTIME_PACKAGE + ".BasicMillisEntity";
+
+    // The annotations that make a class a LivingRoom entity, and a table of LivingRoomDatabase
+    static final List<Class<? extends Annotation>> ENTITY_ANNOTATIONS = Arrays.asList(
+            Crudable.class,
+            Insertable.class,
+            Deletable.class,
+            Updatable.class,
+            Upsertable.class,
+            Archivable.class,
+            SelectableAll.class,
+            SelectableById.class,
+            SelectableWhere.class,
+            SelectableWheres.class);
+
+
+    /**
+     * The repository implements BasicRepository when the entity has the insert, delete, update and getAll() of @Crudable,
+     * getAll() returning the entities (no projection), and is not @Reactive.
+     * Decided from the annotations only, the registry of the repositories is generated by the other processor.
+     */
+    static boolean hasBasicRepository(Element e) {
+        SelectableAll selectableAll = e.getAnnotation(SelectableAll.class);
+        if (selectableAll != null && selectableAll.columns().length > 0) return false;
+        if (e.getAnnotation(Reactive.class) != null) return false;
+        return e.getAnnotation(Crudable.class) != null
+                || (e.getAnnotation(Insertable.class) != null
+                && e.getAnnotation(Deletable.class) != null
+                && e.getAnnotation(Updatable.class) != null
+                && selectableAll != null);
+    }
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
 
+    /**
+     * @return how long the archived items are kept, 0 if they are never purged
+     */
+    static long archiveRetentionMillis(Element e) {
+        Archivable archivable = e.getAnnotation(Archivable.class);
+        return archivable != null && archivable.purgeAfterDays() > 0 ? archivable.purgeAfterDays() * DAY_MILLIS : 0;
+    }
+
+    /**
+     * @return how long the items live after their insertion, 0 if they never expire
+     */
+    static long expiryMillis(Element e) {
+        Expirable expirable = e.getAnnotation(Expirable.class);
+        return expirable != null && expirable.ttlMillis() > 0 ? expirable.ttlMillis() : 0;
+    }
+
+    /**
+     * Walks up the superclasses, the entity can extend BasicEntity or BasicMillisEntity through classes of its own.
+     * @return BASIC_ENTITY, BASIC_MILLIS_ENTITY, or null if the class extends neither of them
+     */
+    static String findBasicEntity(TypeElement e) {
+        TypeMirror superclass = e.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            String name = element.getQualifiedName().toString();
+            if (name.equals(BASIC_ENTITY) || name.equals(BASIC_MILLIS_ENTITY)) return name;
+            superclass = element.getSuperclass();
+        }
+        return null;
+    }
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnvironment) {
         super.init(processingEnvironment);
-        entities = new ArrayList<>();
         entitiesList = new HashMap<>();
     }
 
@@ -84,15 +155,26 @@ public class LivingRoomProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> set, RoundEnvironment env) {
+        // Only the entities of this round: each entity is generated once, from its own element
+        entitiesList.clear();
         parseCrudable(env);
         parseInsertable(env);
         parseDeletable(env);
         parseUpdatable(env);
+        parseUpsertable(env);
         parseArchivable(env);
         parseSelectable(env);
         parseSelectables(env);
         parseSelectableAll(env);
         parseSelectableById(env);
+        parseWriteBehind(env);
+        parseDiffable(env);
+        parseCacheable(env);
+        parseRetention(env);
+        parseReactive(env);
+        parseSearchable(env);
+        parseUpdatableField(env);
+        addForEachMethods();
 
         try {
             generateClasses();
@@ -102,32 +184,25 @@ public class LivingRoomProcessor extends AbstractProcessor {
         return false;
     }
 
-    private void  parseAnnotation(Collection<? extends Element> elements, String method) {
+    private void  parseAnnotation(Collection<? extends Element> elements, String... methods) {
         for (Element e: elements ) {
             checkIfAnnotatedWithEntity(e);
             checkIfExtendsBasicEntity(e);
-            if (entitiesList.containsKey(e)) {
-                EntityClass entityClass = entitiesList.get(e);
-                entitiesList.get(e).addMethod(LivingroomMethod.of(entityClass, method));
+            EntityClass entityClass = entitiesList.get(e);
+            if (entityClass == null) {
+                entityClass = new EntityClass((TypeElement)e);
+                entitiesList.put((TypeElement) e, entityClass);
             }
-            else {
-                EntityClass entityClass = new EntityClass((TypeElement)e);
+            for (String method: methods) {
                 entityClass.addMethod(LivingroomMethod.of(entityClass, method));
-                entitiesList.put((TypeElement) e, entityClass);
             }
         }
     }
 
     private void generateClasses() throws IOException {
         for (Map.Entry<TypeElement, EntityClass> e: entitiesList.entrySet()) {
+                checkIndices(e.getValue());
                 generateCodeForEntity(e.getValue());
-                entities.add(e.getValue().getTypeName());
-        }
-
-        try {
-            generateDatabaseClass();
-        } catch (FilerException e){
-
         }
     }
 
@@ -150,32 +225,55 @@ public class LivingRoomProcessor extends AbstractProcessor {
     private void parseInsertable(RoundEnvironment env) {
         Collection<? extends Element> insertableElements =
                 env.getElementsAnnotatedWith(Insertable.class);
-        parseAnnotation(insertableElements, INSERT);
+        parseAnnotation(insertableElements, INSERT, LivingroomMethod.INSERT_ALL);
     }
 
     private void parseDeletable(RoundEnvironment env) {
         Collection<? extends Element> deletableElements =
                 env.getElementsAnnotatedWith(Deletable.class);
-        parseAnnotation(deletableElements, LivingroomMethod.DELETE);
+        parseAnnotation(deletableElements, LivingroomMethod.DELETE, LivingroomMethod.DELETE_ALL);
     }
 
     private void parseUpdatable(RoundEnvironment env) {
         Collection<? extends Element> updatableElements =
                 env.getElementsAnnotatedWith(Updatable.class);
-        parseAnnotation(updatableElements, LivingroomMethod.UPDATE);
+        parseAnnotation(updatableElements, LivingroomMethod.UPDATE, LivingroomMethod.UPDATE_ALL);
     }
 
+    private void parseUpsertable(RoundEnvironment env) {
+        Collection<? extends Element> upsertableElements =
+                env.getElementsAnnotatedWith(Upsertable.class);
+        parseAnnotation(upsertableElements);
+        for (Element e: upsertableElements) {
+            entitiesList.get(e).setUpsertable();
+        }
+    }
 
     private void parseArchivable(RoundEnvironment env) {
         Collection<? extends Element> archivableElements =
                 env.getElementsAnnotatedWith(Archivable.class);
-        parseAnnotation(archivableElements, LivingroomMethod.SOFT_DELETE);
+        parseAnnotation(archivableElements, LivingroomMethod.SOFT_DELETE, LivingroomMethod.SOFT_DELETE_ALL);
     }
 
     private void parseSelectableAll(RoundEnvironment env) {
         Collection<? extends Element> archivableElements =
                 env.getElementsAnnotatedWith(SelectableAll.class);
         parseAnnotation(archivableElements, GET_ALL);
+        for (Element e: archivableElements) {
+            SelectableAll a = e.getAnnotation(SelectableAll.class);
+            EntityClass entityClass = entitiesList.get(e);
+            SelectMethod select = (SelectMethod) LivingroomMethod.of(entityClass, GET_ALL);
+            if (a.columns().length > 0) {
+                setProjection(e, select, a.columns());
+            }
+            select.setOrder(a.orderBy(), a.limit());
+            setThrottle(e, select, a.throttleMillis());
+            setStreamed(e, select, a.streamed());
+            entityClass.replaceMethod(select); // overrides the getAll() of @Crudable
+            if (a.paged()) {
+                entityClass.addMethods(LivingroomMethod.pagedMethods(select, a.pageSize()));
+            }
+        }
     }
 
     private void parseSelectableById(RoundEnvironment env) {
@@ -184,171 +282,260 @@ public class LivingRoomProcessor extends AbstractProcessor {
         parseAnnotation(archivableElements, GET_BY_ID);
     }
 
-    private void parseSelectable(RoundEnvironment env) { // TODO refactor
+    private void parseWriteBehind(RoundEnvironment env) {
         Collection<? extends Element> elements =
-                env.getElementsAnnotatedWith(SelectableWhere.class);
-
+                env.getElementsAnnotatedWith(WriteBehind.class);
         for (Element e: elements ) {
-            SelectableWhere a = e.getAnnotation(SelectableWhere.class);
-            if (entitiesList.containsKey(e)) {
-                entitiesList.get(e).addMethod(
-                        selectWhereMethod(entitiesList.get(e),
-                                a.methodName(),
-                                a.where(),
-                                a.params(), true));
-            } else {
-                EntityClass entityClass = new EntityClass((TypeElement) e);
-                entityClass.addMethod(
-                        selectWhereMethod(entitiesList.get(e),
-                                a.methodName(),
-                                a.where(),
-                                a.params(), true));
-                entitiesList.put((TypeElement) e, entityClass);
+            EntityClass entityClass = entitiesList.get(e);
+            if (entityClass == null || entityClass.getWriteBehindFlushMethod() == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@WriteBehind can only be used on an entity marked with @Updatable, @Archivable or @Crudable", e);
+                continue;
             }
+            WriteBehind a = e.getAnnotation(WriteBehind.class);
+            entityClass.setWriteBehind(a.windowMillis(), a.maxItems());
         }
     }
 
-    private void parseSelectables(RoundEnvironment env) { // TODO refactor
+    private void parseDiffable(RoundEnvironment env) {
         Collection<? extends Element> elements =
-                env.getElementsAnnotatedWith(SelectableWheres.class);
-
+                env.getElementsAnnotatedWith(Diffable.class);
         for (Element e: elements ) {
-            for (SelectableWhere a: e.getAnnotation(SelectableWheres.class).value() ) {
+            EntityClass entityClass = entitiesList.get(e);
+            if (entityClass == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Diffable can only be used on an entity marked with a LivingRoom annotation, such as @Crudable or @SelectableAll", e);
+                continue;
+            }
+            entityClass.setDiffable();
+        }
+    }
 
-                if (entitiesList.containsKey(e)) {
-                    entitiesList.get(e).addMethod(
-                            selectWhereMethod(entitiesList.get(e),
-                                    a.methodName(),
-                                    a.where(),
-                                    a.params(), true));
-                } else {
-                    EntityClass entityClass = new EntityClass((TypeElement) e);
-                    entityClass.addMethod(
-                            selectWhereMethod(entitiesList.get(e),
-                                    a.methodName(),
-                                    a.where(),
-                                    a.params(), true));
-                    entitiesList.put((TypeElement) e, entityClass);
-                }
+    private void parseRetention(RoundEnvironment env) {
+        for (Element e: env.getElementsAnnotatedWith(Archivable.class)) {
+            if (e.getAnnotation(Archivable.class).purgeAfterDays() < 0)
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The purgeAfterDays of @Archivable must not be negative", e);
+        }
+        for (Element e: env.getElementsAnnotatedWith(Expirable.class)) {
+            if (!entitiesList.containsKey(e))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Expirable can only be used on an entity marked with a LivingRoom annotation, such as @Crudable", e);
+            else if (e.getAnnotation(Expirable.class).ttlMillis() <= 0)
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The ttlMillis of @Expirable must be positive", e);
+        }
+        for (Map.Entry<TypeElement, EntityClass> e: entitiesList.entrySet()) {
+            e.getValue().setRetention(archiveRetentionMillis(e.getKey()) > 0, expiryMillis(e.getKey()) > 0);
+        }
+    }
+
+    private void parseReactive(RoundEnvironment env) {
+        for (Element e: env.getElementsAnnotatedWith(Reactive.class)) {
+            if (!entitiesList.containsKey(e))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Reactive can only be used on an entity marked with a LivingRoom annotation, such as @Crudable", e);
+            else if (e.getAnnotation(Cacheable.class) != null || e.getAnnotation(WriteBehind.class) != null)
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Reactive cannot be used with @Cacheable or @WriteBehind, which keep their items in LiveData", e);
+        }
+    }
+
+    // After the other annotations, which may replace or page the selects
+    private void addForEachMethods() {
+        for (EntityClass entityClass: entitiesList.values()) {
+            for (SelectMethod select: entityClass.getSelectMethods()) {
+                if (select.isStreamed()) entityClass.addMethods(LivingroomMethod.forEachMethods(select));
             }
         }
     }
 
-    private void generateCodeForEntity(EntityClass clazz) throws IOException {
-        String path = clazz.getTypeElement().getQualifiedName().toString();
-        if (packageName == null) { // TODO get out package from here (only for the database)
-            int lastDot = path.lastIndexOf('.');
-            if (lastDot > 0) {
-                packageName = path.substring(0, lastDot);
+    // The @Searchable fields can be declared by a superclass of the entity
+    private void parseSearchable(RoundEnvironment env) {
+        for (Element e: env.getElementsAnnotatedWith(Searchable.class)) {
+            if (!e.asType().toString().equals(String.class.getName()))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Searchable can only be used on a String field", e);
+            Element enclosing = e.getEnclosingElement();
+            if (enclosing.getAnnotation(Entity.class) != null && !entitiesList.containsKey(enclosing))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Searchable can only be used on an entity marked with a LivingRoom annotation, such as @Crudable", e);
+        }
+        for (Map.Entry<TypeElement, EntityClass> e: entitiesList.entrySet()) {
+            FtsTable ftsTable = FtsTable.of(e.getKey());
+            if (ftsTable != null) e.getValue().setFtsTable(ftsTable);
+        }
+    }
+
+    private void parseUpdatableField(RoundEnvironment env) {
+        for (Element e: env.getElementsAnnotatedWith(UpdatableField.class)) {
+            EntityClass entityClass = entitiesList.get(e.getEnclosingElement());
+            if (entityClass == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@UpdatableField can only be used on a field of an entity marked with a LivingRoom annotation, such as @Crudable", e);
+                continue;
             }
+            entityClass.addMethod(new FieldUpdateMethod(entityClass, e));
         }
-        try {
-            generateDaoClass(clazz);
-            generateRepositoryClass(clazz);
-            generateViewModelClass(clazz);
-        } catch (FilerException e) {
+    }
 
+    private void parseCacheable(RoundEnvironment env) {
+        Collection<? extends Element> elements =
+                env.getElementsAnnotatedWith(Cacheable.class);
+        for (Element e: elements ) {
+            EntityClass entityClass = entitiesList.get(e);
+            SelectMethod getById = null;
+            if (entityClass != null) {
+                for (SelectMethod m: entityClass.getSelectMethods()) {
+                    if (m.getMethodName().equals(GET_BY_ID)) getById = m;
+                }
+            }
+            Cacheable a = e.getAnnotation(Cacheable.class);
+            if (getById == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Cacheable can only be used on an entity marked with @SelectableById or @Crudable", e);
+                continue;
+            }
+            if (a.size() <= 0) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The size of @Cacheable must be positive", e);
+                continue;
+            }
+            entityClass.replaceMethod(new CachedSelectMethod(getById));
+            entityClass.setCacheable(a.size());
         }
+    }
+
+    private void parseSelectable(RoundEnvironment env) {
+        Collection<? extends Element> elements =
+                env.getElementsAnnotatedWith(SelectableWhere.class);
 
+        for (Element e: elements ) {
+            addSelectWhere(e, e.getAnnotation(SelectableWhere.class));
+        }
     }
 
-    private void checkIfExtendsBasicEntity(Element annotatedElement){
-        TypeElement superClassTypeElement =
-                (TypeElement)((DeclaredType)((TypeElement)annotatedElement).getSuperclass()).asElement();
-        if (!superClassTypeElement.getSimpleName().toString().equals("BasicEntity"))
-            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Your entity class must inherit from BasicEntity in order to use LivingRoom annotations", annotatedElement);
+    private void parseSelectables(RoundEnvironment env) {
+        Collection<? extends Element> elements =
+                env.getElementsAnnotatedWith(SelectableWheres.class);
 
+        for (Element e: elements ) {
+            for (SelectableWhere a: e.getAnnotation(SelectableWheres.class).value() ) {
+                addSelectWhere(e, a);
+            }
+        }
     }
-    private void checkIfAnnotatedWithEntity(Element annotatedElement){
-        if (annotatedElement.getAnnotation(Entity.class) == null)
-            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Please consider marking your class as a room @Entity", annotatedElement);
 
+    private void addSelectWhere(Element e, SelectableWhere a) {
+        EntityClass entityClass = entitiesList.get(e);
+        if (entityClass == null) {
+            entityClass = new EntityClass((TypeElement) e);
+            entitiesList.put((TypeElement) e, entityClass);
+        }
+        SelectMethod select = (SelectMethod) selectWhereMethod(entityClass,
+                a.methodName(),
+                a.where(),
+                a.params(), true);
+        if (a.columns().length > 0) {
+            setProjection(e, select, a.columns());
+        }
+        select.setOrder(a.orderBy(), a.limit());
+        setThrottle(e, select, a.throttleMillis());
+        if (a.paged() || a.streamed()) checkKeysetParams(e, select, a.streamed());
+        setStreamed(e, select, a.streamed());
+        entityClass.addMethod(select);
+        if (a.paged()) {
+            entityClass.addMethods(LivingroomMethod.pagedMethods(select, a.pageSize()));
+        }
+    }
+
+    private void setThrottle(Element e, SelectMethod select, long throttleMillis) {
+        if (throttleMillis < 0)
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The throttleMillis of " + select.getMethodName() + "() must not be negative", e);
+        else if (throttleMillis > 0 && select.getEntityClass().isReactive())
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The throttleMillis of " + select.getMethodName() + "() is not supported with @Reactive, use throttleLatest() on the Flowable", e);
+        else
+            select.setThrottle(throttleMillis);
     }
 
-    private void generateDaoClass(EntityClass clazz) throws IOException {
-        JavaFile javaFile = JavaFile.builder(packageName, clazz.generateDaoClass()).build();
-        Filer filer = processingEnv.getFiler();
-        //javaFile.writeTo(System.out);
-        javaFile.writeTo(filer);
+    // forEach walks all the rows by id, without the order and limit of the select
+    private void setStreamed(Element e, SelectMethod select, boolean streamed) {
+        if (!streamed) return;
+        if (!select.getOrderBy().isEmpty() || select.getLimit() > 0)
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The streamed " + select.getMethodName() + "() cannot have an orderBy or a limit, its forEach method reads all the rows ordered by id", e);
+        else
+            select.setStreamed();
     }
 
-    private void generateViewModelClass(EntityClass clazz) throws IOException {
-        JavaFile javaFile = JavaFile.builder(packageName, clazz.generateViewModelClass()).build();
-        Filer filer = processingEnv.getFiler();
-        //javaFile.writeTo(System.out);
-        javaFile.writeTo(filer);
+    // The keyset and forEach methods add their own parameters to the ones of the select
+    private void checkKeysetParams(Element e, SelectMethod select, boolean streamed) {
+        for (String param: select.getParams().keySet()) {
+            if (param.equals(KeysetSelectMethod.LAST_ID_PARAM) || param.equals(KeysetSelectMethod.LIMIT_PARAM)
+                    || (streamed && param.equals(ForEachMethod.CONSUMER_PARAM)))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The parameter " + param + " of " + select.getMethodName() + "() is reserved by its paged and streamed methods, rename it", e);
+        }
     }
 
-    private void generateRepositoryClass(EntityClass clazz) throws IOException {
-        JavaFile javaFile = JavaFile.builder(packageName, clazz.generateRepositoryClass()).build();
-        Filer filer = processingEnv.getFiler();
-        //javaFile.writeTo(System.out);
-        javaFile.writeTo(filer);
+    private void setProjection(Element e, SelectMethod select, String[] columns) {
+        Projection projection = new Projection(select.getEntityClass(), select.getMethodName(), columns);
+        for (String column: projection.getUnknownColumns()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "The column " + column + " selected by " + select.getMethodName() + "() is not a field of " + select.getEntityClass().getName(), e);
+        }
+        select.setProjection(projection);
     }
 
-    private void generateDatabaseClass() throws IOException {
-        final String instanceName = "INSTANCE";
-        final String dataBaseName = "custom_database";
-        StringBuilder listEntities = new StringBuilder("{");
-        List<MethodSpec> listDaoMethods = new ArrayList<>();
+    private void generateCodeForEntity(EntityClass clazz) throws IOException {
+        try {
+            for (TypeSpec projection: clazz.generateProjectionClasses()) {
+                writeSource(clazz, projection);
+            }
+            if (clazz.getFtsTable() != null) {
+                writeSource(clazz, clazz.getFtsTable().generateClass());
+            }
+            writeSource(clazz, clazz.generateDaoClass());
+            writeSource(clazz, clazz.generateRepositoryClass());
+            writeSource(clazz, clazz.generateViewModelClass());
+            if (clazz.isDiffable()) {
+                writeSource(clazz, clazz.generateDiffCallbackClass());
+                writeSource(clazz, clazz.generateListAdapterClass());
+            }
+        } catch (FilerException | IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), clazz.getTypeElement());
+        }
+
+    }
 
-        for (TypeName entity: entities) {
-            int lastDot = entity.toString().lastIndexOf('.');
-            String entityClassName = entity.toString().substring(lastDot + 1);
-            listEntities.append(entityClassName).append(".class, ");
-            listDaoMethods.add(
-                    MethodSpec.methodBuilder(
-                            (entityClassName+ SUFFIX_DAO).toLowerCase())
-                            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
-                            .returns(ClassName.get(packageName, entityClassName+ SUFFIX_DAO))
-                            .build());
+    /**
+     * Room cannot be told about an index from outside of the entity class,
+     * so the processor only checks that the generated queries can use one and explains how to add it.
+     */
+    private void checkIndices(EntityClass clazz) {
+        EntityIndices indices = new EntityIndices(clazz.getTypeElement());
+        if (!indices.inheritsSuperIndices())
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "The indices of BasicEntity (isDeleted, created_at) used by the LivingRoom queries are dropped by Room, "
+                            + "set inheritSuperIndices = true in @Entity to keep them", clazz.getTypeElement());
+
+        for (SelectMethod select: clazz.getSelectMethods()) {
+            List<String> columns = indices.referencedColumns(select.getWhere());
+            if (indices.isCovered(columns)) continue;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    select.getMethodName() + "() filters on " + String.join(", ", columns)
+                            + " without an index, the query will scan the whole table. Consider adding "
+                            + "@Index({\"" + String.join("\", \"", columns) + "\"}) to the indices of @Entity",
+                    clazz.getTypeElement());
         }
+    }
+
+    private void checkIfExtendsBasicEntity(Element annotatedElement){
+        if (findBasicEntity((TypeElement) annotatedElement) == null)
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Your entity class must inherit from BasicEntity or BasicMillisEntity in order to use LivingRoom annotations", annotatedElement);
+
+    }
+    private void checkIfAnnotatedWithEntity(Element annotatedElement){
+        if (annotatedElement.getAnnotation(Entity.class) == null)
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Please consider marking your class as a room @Entity", annotatedElement);
+
+    }
 
-        FieldSpec instance = FieldSpec.builder(ClassName.get(packageName, dbClassName), instanceName)
-                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE).build();
-        listEntities.append("}");
-
-        MethodSpec getDatabase = MethodSpec.methodBuilder("getDatabase")
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(ClassName.get("android.content",
-                        "Context"),
-                        "context",
-                        Modifier.FINAL)
-                .addCode("if ($N == null) {\n" +
-                        "    synchronized ($T.class) {\n" +
-                        "        if ($N == null) {\n" +
-                        "            $N = androidx.room.Room.databaseBuilder(context.getApplicationContext(),\n" +
-                        "                    $T.class, \""+dataBaseName+"\")\n" +
-                        "                    .fallbackToDestructiveMigration()\n" +
-                        "                    .build();\n" +
-                        "        }\n" +
-                        "    }\n" +
-                        "}\n" +
-                        "return $N;",
-                        instanceName, ClassName.get(packageName, dbClassName) , instanceName, instanceName, ClassName.get(packageName, dbClassName), instanceName)
-                .returns(ClassName.get(packageName, dbClassName))
-                .build();
-
-        TypeSpec dbClass = TypeSpec.classBuilder(dbClassName)
-                .superclass(ClassName.get("androidx.room", "RoomDatabase"))
-                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
-                .addAnnotation(AnnotationSpec.builder(Database.class)
-                        .addMember("entities", listEntities.toString())
-                        .addMember("version", "1")
-                        .addMember("exportSchema", "false")
-                        .build())
-                .addAnnotation(AnnotationSpec.builder(TypeConverters.class)
-                        .addMember("value", "$T.class", ClassName.get("com.pentabin.livingroom", "DateConverter") )
-                        .build())
-                .addField(instance)
-                .addMethods(listDaoMethods)
-                .addMethod(getDatabase)
-                .build();
-
-        Filer filer = processingEnv.getFiler();
-        JavaFile javaFile = JavaFile.builder(packageName, dbClass)
-                .build();
-        javaFile.writeTo(filer);
+    /**
+     * Each generated class has its entity as only originating element, so Gradle can process the entities in isolation.
+     */
+    private void writeSource(EntityClass clazz, TypeSpec typeSpec) throws IOException {
+        JavaFile.builder(clazz.getPackageName(), typeSpec.toBuilder()
+                .addOriginatingElement(clazz.getTypeElement())
+                .build())
+                .build()
+                .writeTo(processingEnv.getFiler());
     }
 
 }
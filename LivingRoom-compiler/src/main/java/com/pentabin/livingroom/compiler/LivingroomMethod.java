@@ -4,14 +4,15 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Update;
 
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,13 +30,20 @@ abstract class LivingroomMethod {
     static final String DELETE = "delete";
     static final String SOFT_DELETE = "archive";
     static final String UPDATE = "update";
+    static final String INSERT_ALL = "insertAll";
+    static final String DELETE_ALL = "deleteAll";
+    static final String SOFT_DELETE_ALL = "archiveAll";
+    static final String UPDATE_ALL = "updateAll";
     static final String GET_ALL = "getAll";
     static final String GET_BY_ID = "getById";
 
+    private static final String asyncMethodSuffix = "Async";
+    static final String CALLBACK_PARAM = "callback";
+
     LivingroomMethod(EntityClass entityClass, String methodName) {
         this.entityClass = entityClass;
         this.methodName = methodName;
-        this.params = new HashMap<>();
+        this.params = new LinkedHashMap<>();
     }
 
     static LivingroomMethod of(EntityClass entityClass, String methodName) {
@@ -48,6 +56,14 @@ abstract class LivingroomMethod {
                 return archiveMethod(entityClass);
             case UPDATE:
                 return updateMethod(entityClass);
+            case INSERT_ALL:
+                return insertAllMethod(entityClass);
+            case DELETE_ALL:
+                return deleteAllMethod(entityClass);
+            case SOFT_DELETE_ALL:
+                return archiveAllMethod(entityClass);
+            case UPDATE_ALL:
+                return updateAllMethod(entityClass);
             case GET_ALL:
                 return selectAllMethod(entityClass);
             case GET_BY_ID:
@@ -61,9 +77,9 @@ abstract class LivingroomMethod {
         AsyncMethod method = new AsyncMethod(entityClass, INSERT);
         method.setAnnotation(Insert.class);
         method.addParam(entityClass.getTypeName(), "item");
-        method.setReturnType(TypeName.get(Long.class));
+        method.setReturnType(TypeName.LONG);
         method.setPreCode(CodeBlock.builder()
-                .addStatement("item.setCreated_at(new $T())", Date.class) //TODO CreatedAt string as constant!!
+                .addStatement("item.setCreated_at($L)", entityClass.currentTimestamp()) //TODO CreatedAt string as constant!!
                 .build());
         return method;
     }
@@ -82,30 +98,80 @@ abstract class LivingroomMethod {
         method.addParam(entityClass.getTypeName(), "item");
         method.setReturnType(TypeName.get(Void.class));
         method.setPreCode(CodeBlock.builder()
-                .addStatement("item.setUpdated_at(new $T())", Date.class)
+                .addStatement("item.setUpdated_at($L)", entityClass.currentTimestamp())
                 .build());
         return method;
     }
 
 
     private static LivingroomMethod archiveMethod(EntityClass entityClass) {
-        AsyncMethod method = new AsyncMethod(entityClass, UPDATE);
+        AsyncMethod method = new AsyncMethod(entityClass, SOFT_DELETE);
         method.setAnnotation(Update.class);
         method.addParam(entityClass.getTypeName(), "item");
         method.setReturnType(TypeName.get(Void.class));
         method.setPreCode(CodeBlock.builder()
-                .addStatement("item.setUpdated_at(new $T())", Date.class)
+                .addStatement("item.setUpdated_at($L)", entityClass.currentTimestamp())
                 .addStatement("item.setDeleted($N)", "true")
                 .build());
         return method;
     }
 
+    // Batch methods: Room runs a list @Insert/@Update/@Delete in a single transaction
+
+    private static AsyncMethod batchMethod(EntityClass entityClass, String methodName, Class annotation) {
+        AsyncMethod method = new AsyncMethod(entityClass, methodName, true);
+        method.setAnnotation(annotation);
+        method.addParam(ParameterizedTypeName.get(ClassName.get(List.class), entityClass.getTypeName()), "items");
+        method.setReturnType(TypeName.get(Void.class));
+        return method;
+    }
+
+    // The clock is read once for the whole batch
+    private static CodeBlock batchPreCode(EntityClass entityClass, CodeBlock perItem) {
+        return CodeBlock.builder()
+                .addStatement("$T now = $L", entityClass.getTimestampType(), entityClass.currentTimestamp())
+                .beginControlFlow("for ($T item : items)", entityClass.getTypeName())
+                .add(perItem)
+                .endControlFlow()
+                .build();
+    }
+
+    private static LivingroomMethod insertAllMethod(EntityClass entityClass) {
+        AsyncMethod method = batchMethod(entityClass, INSERT_ALL, Insert.class);
+        method.setReturnType(ArrayTypeName.of(TypeName.LONG));
+        method.setPreCode(batchPreCode(entityClass, CodeBlock.builder()
+                .addStatement("item.setCreated_at(now)")
+                .build()));
+        return method;
+    }
+
+    private static LivingroomMethod deleteAllMethod(EntityClass entityClass) {
+        return batchMethod(entityClass, DELETE_ALL, Delete.class);
+    }
+
+    private static LivingroomMethod updateAllMethod(EntityClass entityClass) {
+        AsyncMethod method = batchMethod(entityClass, UPDATE_ALL, Update.class);
+        method.setPreCode(batchPreCode(entityClass, CodeBlock.builder()
+                .addStatement("item.setUpdated_at(now)")
+                .build()));
+        return method;
+    }
+
+    private static LivingroomMethod archiveAllMethod(EntityClass entityClass) {
+        AsyncMethod method = batchMethod(entityClass, SOFT_DELETE_ALL, Update.class);
+        method.setPreCode(batchPreCode(entityClass, CodeBlock.builder()
+                .addStatement("item.setUpdated_at(now)")
+                .addStatement("item.setDeleted($N)", "true")
+                .build()));
+        return method;
+    }
+
     private static LivingroomMethod selectAllMethod(EntityClass entityClass) {
         return selectWhereMethod(entityClass, GET_ALL, "isDeleted = 0", null, true);
     }
 
     private static LivingroomMethod selectByIdMethod(EntityClass entityClass) {
-        String[] params = {"Long id"};
+        String[] params = {"long id"};
 
         return selectWhereMethod(entityClass, GET_BY_ID, "id = :id", params, false);
     }
@@ -114,12 +180,33 @@ abstract class LivingroomMethod {
         return new SelectMethod(methodName, where, entityClass, params, isList);
     }
 
+    // Example: getAllPaged() and getAllPageAfter(lastId, limit) for getAll()
+    static List<LivingroomMethod> pagedMethods(SelectMethod select, int pageSize) {
+        List<LivingroomMethod> list = new ArrayList<>();
+        list.add(new PagedSelectMethod(select, pageSize));
+        list.add(new KeysetSelectMethod(select));
+        return list;
+    }
+
+    // Example: getAllPageAfter(lastId, limit) and forEachAll(consumer) for getAll()
+    static List<LivingroomMethod> forEachMethods(SelectMethod select) {
+        List<LivingroomMethod> list = new ArrayList<>();
+        KeysetSelectMethod keyset = new KeysetSelectMethod(select);
+        list.add(keyset);
+        list.add(new ForEachMethod(select, keyset));
+        return list;
+    }
+
     static List<LivingroomMethod> crud(EntityClass entityClass) {
         List<LivingroomMethod> list = new ArrayList<>();
         list.add(insertMethod(entityClass));
         list.add(deleteMethod(entityClass));
         list.add(archiveMethod(entityClass));
         list.add(updateMethod(entityClass));
+        list.add(insertAllMethod(entityClass));
+        list.add(deleteAllMethod(entityClass));
+        list.add(archiveAllMethod(entityClass));
+        list.add(updateAllMethod(entityClass));
         list.add(selectAllMethod(entityClass));
         list.add(selectByIdMethod(entityClass));
         return list;
@@ -186,7 +273,22 @@ abstract class LivingroomMethod {
     }
 
     void addParam(String type, String name) {
-        params.put(name, ClassName.bestGuess(type));
+        params.put(name, typeName(type));
+    }
+
+    // Example: "long" -> long, "java.util.Date" -> Date
+    static TypeName typeName(String type) {
+        switch (type) {
+            case "boolean": return TypeName.BOOLEAN;
+            case "byte": return TypeName.BYTE;
+            case "short": return TypeName.SHORT;
+            case "int": return TypeName.INT;
+            case "long": return TypeName.LONG;
+            case "char": return TypeName.CHAR;
+            case "float": return TypeName.FLOAT;
+            case "double": return TypeName.DOUBLE;
+            default: return ClassName.bestGuess(type);
+        }
     }
 
     void addParam(TypeName type, String name) {
@@ -209,10 +311,42 @@ abstract class LivingroomMethod {
         return methodBuilder;
     }
 
+    /**
+     * False for the methods implemented by the Repository on top of other Dao methods.
+     */
+    boolean hasDaoMethod() {
+        return true;
+    }
+
+    /**
+     * False for the methods blocking on the database, kept off the ViewModel which runs on the main thread.
+     */
+    boolean hasViewModelMethod() {
+        return true;
+    }
+
     public MethodSpec.Builder generateDaoMethod(){
         return generateMethod().addModifiers(Modifier.ABSTRACT);
     }
 
+    ParameterizedTypeName getCallbackType() {
+        return ParameterizedTypeName.get(ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "ResultCallback"),
+                returnType.box());
+    }
+
+    String getAsyncMethodName() {
+        return methodName + asyncMethodSuffix;
+    }
+
+    // Example: insertAsync(item, callback)
+    MethodSpec.Builder generateAsyncMethod() {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(getAsyncMethodName())
+                .addModifiers(Modifier.PUBLIC);
+        params.forEach((k, v) -> builder.addParameter(v, k));
+        builder.addParameter(getCallbackType(), CALLBACK_PARAM);
+        return builder;
+    }
+
     public abstract MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass);
 
     public abstract MethodSpec.Builder generateViewModelMethod(EntityClass entityClass);
@@ -0,0 +1,52 @@
+package com.pentabin.livingroom.compiler;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+
+import static com.pentabin.livingroom.compiler.EntityClass.EXECUTORS_FIELD;
+
+/**
+ * Paged variant of a select, the Dao returns a DataSource.Factory
+ * and the Repository and ViewModel a LiveData PagedList.
+ */
+public class PagedSelectMethod extends SelectMethod {
+    private static final String PAGING_PACKAGE = "androidx.paging";
+    static final String SUFFIX = "Paged";
+
+    private final int pageSize;
+
+    PagedSelectMethod(SelectMethod select, int pageSize) {
+        super(select.getMethodName() + SUFFIX, select.getWhere(), select.getEntityClass(), null, true);
+        this.pageSize = pageSize;
+        select.getParams().forEach((k, v) -> this.addParam(v, k));
+        if (select.getProjection() != null) this.setProjection(select.getProjection());
+        this.setOrder(select.getOrderBy().isEmpty() ? "id" : select.getOrderBy(), 0);
+    }
+
+    @Override
+    public MethodSpec.Builder generateDaoMethod() {
+        return super.generateDaoMethod()
+                .returns(ParameterizedTypeName.get(ClassName.get(PAGING_PACKAGE, "DataSource", "Factory"),
+                        TypeName.get(Integer.class),
+                        getResultType()));
+    }
+
+    // Example: new LivePagedListBuilder<>(notedao.getAllPaged(), 50).setFetchExecutor(executors.diskIO()).build()
+    @Override
+    CodeBlock generateRepositorySource(EntityClass entityClass) {
+        return CodeBlock.of("new $T<>($L, $L).setFetchExecutor($N.diskIO()).build()",
+                ClassName.get(PAGING_PACKAGE, "LivePagedListBuilder"),
+                super.generateRepositorySource(entityClass),
+                pageSize,
+                EXECUTORS_FIELD);
+    }
+
+    @Override
+    ParameterizedTypeName getReturnType() {
+        return ParameterizedTypeName.get(ClassName.get("androidx.lifecycle", "LiveData"),
+                ParameterizedTypeName.get(ClassName.get(PAGING_PACKAGE, "PagedList"), getResultType()));
+    }
+}
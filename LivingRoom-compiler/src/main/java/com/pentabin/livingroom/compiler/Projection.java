@@ -0,0 +1,110 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Ignore;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A subset of the columns of an entity read by a select, generated as a POJO with one public field per column.
+ * <p>
+ * Example: columns = {"title"} on getAll() of Note generates NoteGetAllProjection with the fields id and title,
+ * and the query SELECT id, title FROM Note WHERE isDeleted = 0.
+ */
+class Projection {
+    private static final String SUFFIX = "Projection";
+    private static final String PRIMARY_KEY = "id";
+
+    private final ClassName className;
+    private final String entityName;
+    private final String methodName;
+    // column -> type of the entity field, the id always comes first
+    private final Map<String, TypeName> fields = new LinkedHashMap<>();
+    private final List<String> unknownColumns = new ArrayList<>();
+
+    Projection(EntityClass entityClass, String methodName, String[] columns) {
+        this.entityName = entityClass.getName();
+        this.methodName = methodName;
+        this.className = ClassName.get(entityClass.getPackageName(),
+                entityName + Character.toUpperCase(methodName.charAt(0)) + methodName.substring(1) + SUFFIX);
+
+        Map<String, String> declared = new HashMap<>();
+        Map<String, TypeName> types = new HashMap<>();
+        collectColumns(entityClass.getTypeElement(), declared, types);
+
+        List<String> selected = new ArrayList<>();
+        selected.add(PRIMARY_KEY);
+        for (String column : columns) {
+            if (!column.trim().isEmpty()) selected.add(column.trim());
+        }
+        for (String column : selected) {
+            String key = column.toLowerCase(Locale.US);
+            if (!declared.containsKey(key)) unknownColumns.add(column);
+            else fields.put(declared.get(key), types.get(key));
+        }
+    }
+
+    private static void collectColumns(TypeElement type, Map<String, String> declared, Map<String, TypeName> types) {
+        while (type != null) {
+            for (Element e : type.getEnclosedElements()) {
+                if (e.getKind() != ElementKind.FIELD
+                        || e.getModifiers().contains(Modifier.STATIC)
+                        || e.getAnnotation(Ignore.class) != null)
+                    continue;
+                ColumnInfo columnInfo = e.getAnnotation(ColumnInfo.class);
+                String column = (columnInfo != null && !columnInfo.name().equals(ColumnInfo.INHERIT_FIELD_NAME))
+                        ? columnInfo.name() : e.getSimpleName().toString();
+                String key = column.toLowerCase(Locale.US);
+                if (declared.containsKey(key)) continue; // hidden by a subclass field
+                declared.put(key, column);
+                types.put(key, TypeName.get(e.asType()));
+            }
+            TypeMirror superclass = type.getSuperclass();
+            type = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+    }
+
+    ClassName getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the columns that are not fields of the entity, the projection is invalid if not empty
+     */
+    List<String> getUnknownColumns() {
+        return unknownColumns;
+    }
+
+    // Example: id, title
+    String getSelectList() {
+        return String.join(", ", fields.keySet());
+    }
+
+    TypeSpec generateClass() {
+        TypeSpec.Builder builder = TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PUBLIC)
+                .addJavadoc("Columns of $L read by $L()\n", entityName, methodName);
+        fields.forEach((column, type) ->
+                builder.addField(FieldSpec.builder(type, column, Modifier.PUBLIC).build()));
+        return builder.build();
+    }
+}
@@ -0,0 +1,434 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The tables Room creates for the entities, as the processor can see them: the columns with their SQL definition,
+ * the primary keys and the indices.
+ * <p>
+ * It is saved in a line based format by {@link SchemaHistory}, and compared with the previous version
+ * to generate the migration statements of the additive changes.
+ */
+class Schema {
+    // Room stores a Date through the DateConverter of LivingRoom, as a nullable Long
+    private static final String DATE = "java.util.Date";
+    // indexed by the constants of ColumnInfo: UNDEFINED, TEXT, INTEGER, REAL, BLOB
+    private static final String[] AFFINITIES = {null, null, "TEXT", "INTEGER", "REAL", "BLOB"};
+
+    private final Map<String, Table> tables = new TreeMap<>();
+
+    static class Table {
+        private final String name;
+        // name -> definition, such as "INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL"
+        private final Map<String, String> columns = new LinkedHashMap<>();
+        // name -> index
+        private final Map<String, TableIndex> indices = new TreeMap<>();
+        // the columns of a primary key not declared in a column definition
+        private List<String> primaryKey = new ArrayList<>();
+        // the table of the content entity of an FTS4 table, null for a table of an entity
+        private String content;
+
+        Table(String name) {
+            this.name = name;
+        }
+
+        void addColumn(String column, String definition) {
+            columns.put(column, definition);
+        }
+
+        void addIndex(String indexName, boolean unique, List<String> indexColumns) {
+            indices.put(indexName, new TableIndex(unique, indexColumns));
+        }
+
+        void setPrimaryKey(List<String> primaryKey) {
+            this.primaryKey = primaryKey;
+        }
+
+        void setContent(String content) {
+            this.content = content;
+        }
+
+        boolean isFts() {
+            return content != null;
+        }
+
+        // Example: CREATE TABLE IF NOT EXISTS `Note` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `title` TEXT)
+        // or CREATE VIRTUAL TABLE IF NOT EXISTS `NoteFts` USING FTS4(`title` TEXT, content=`Note`)
+        String createSql() {
+            List<String> definitions = new ArrayList<>();
+            for (Map.Entry<String, String> column : columns.entrySet()) {
+                definitions.add(quote(column.getKey()) + " " + column.getValue());
+            }
+            if (!primaryKey.isEmpty()) definitions.add("PRIMARY KEY(" + quote(primaryKey) + ")");
+            if (isFts()) {
+                definitions.add("content=" + quote(content));
+                return "CREATE VIRTUAL TABLE IF NOT EXISTS " + quote(name) + " USING FTS4(" + String.join(", ", definitions) + ")";
+            }
+            return "CREATE TABLE IF NOT EXISTS " + quote(name) + " (" + String.join(", ", definitions) + ")";
+        }
+
+        // Example: CREATE INDEX IF NOT EXISTS `index_Note_created_at` ON `Note` (`created_at`)
+        String createIndexSql(String indexName) {
+            TableIndex index = indices.get(indexName);
+            return "CREATE " + (index.unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + quote(indexName)
+                    + " ON " + quote(name) + " (" + quote(index.columns) + ")";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Table)) return false;
+            Table table = (Table) o;
+            return name.equals(table.name) && columns.equals(table.columns)
+                    && indices.equals(table.indices) && primaryKey.equals(table.primaryKey)
+                    && Objects.equals(content, table.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, columns, indices, primaryKey, content);
+        }
+    }
+
+    private static class TableIndex {
+        private final boolean unique;
+        private final List<String> columns;
+
+        TableIndex(boolean unique, List<String> columns) {
+            this.unique = unique;
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TableIndex)) return false;
+            TableIndex index = (TableIndex) o;
+            return unique == index.unique && columns.equals(index.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(unique, columns);
+        }
+    }
+
+    void addTable(Table table) {
+        tables.put(table.name, table);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a column of the entity has a type the processor cannot map to SQL,
+     * such as an @Embedded object or a type with a TypeConverter of the application
+     */
+    static Table tableOf(TypeElement entity) {
+        Entity annotation = entity.getAnnotation(Entity.class);
+        String tableName = tableName(entity);
+        boolean inheritSuperIndices = annotation != null && annotation.inheritSuperIndices();
+        Table table = new Table(tableName);
+        if (annotation != null && annotation.primaryKeys().length > 0)
+            table.setPrimaryKey(Arrays.asList(annotation.primaryKeys()));
+
+        // from the base class to the entity, so the id is the first column
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement type = entity; type != null; type = superclass(type)) {
+            hierarchy.add(0, type);
+        }
+        for (TypeElement type : hierarchy) {
+            boolean keepIndices = type == entity || inheritSuperIndices;
+            Entity entityAnnotation = type.getAnnotation(Entity.class);
+            if (entityAnnotation != null && keepIndices) {
+                for (Index index : entityAnnotation.indices()) {
+                    List<String> indexColumns = Arrays.asList(index.value());
+                    table.addIndex(index.name().isEmpty() ? indexName(tableName, indexColumns) : index.name(),
+                            index.unique(), indexColumns);
+                }
+            }
+            for (Element field : type.getEnclosedElements()) {
+                if (!isColumn(field)) continue;
+                if (field.getAnnotation(Embedded.class) != null)
+                    throw new IllegalArgumentException("the @Embedded field " + field.getSimpleName()
+                            + " of " + entity.getSimpleName() + " is not supported");
+                ColumnInfo columnInfo = field.getAnnotation(ColumnInfo.class);
+                String column = columnName(field);
+                table.addColumn(column, columnDefinition(entity, field, columnInfo));
+                if (columnInfo != null && columnInfo.index() && keepIndices)
+                    table.addIndex(indexName(tableName, Arrays.asList(column)), false, Arrays.asList(column));
+                PrimaryKey primaryKey = field.getAnnotation(PrimaryKey.class);
+                if (primaryKey != null && !primaryKey.autoGenerate())
+                    table.setPrimaryKey(Arrays.asList(column));
+            }
+        }
+        return table;
+    }
+
+    // The fields Room stores: not static, transient or @Ignore
+    static boolean isColumn(Element field) {
+        return field.getKind() == ElementKind.FIELD
+                && !field.getModifiers().contains(Modifier.STATIC)
+                && !field.getModifiers().contains(Modifier.TRANSIENT)
+                && field.getAnnotation(Ignore.class) == null;
+    }
+
+    static String tableName(TypeElement entity) {
+        Entity annotation = entity.getAnnotation(Entity.class);
+        return annotation != null && !annotation.tableName().isEmpty()
+                ? annotation.tableName() : entity.getSimpleName().toString();
+    }
+
+    static String columnName(Element field) {
+        ColumnInfo columnInfo = field.getAnnotation(ColumnInfo.class);
+        return (columnInfo != null && !columnInfo.name().equals(ColumnInfo.INHERIT_FIELD_NAME))
+                ? columnInfo.name() : field.getSimpleName().toString();
+    }
+
+    // Example: INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL
+    private static String columnDefinition(TypeElement entity, Element field, ColumnInfo columnInfo) {
+        TypeMirror type = field.asType();
+        String affinity = affinity(type);
+        if (columnInfo != null && columnInfo.typeAffinity() != ColumnInfo.UNDEFINED)
+            affinity = AFFINITIES[columnInfo.typeAffinity()];
+        if (affinity == null)
+            throw new IllegalArgumentException("the type " + type + " of " + entity.getSimpleName() + "."
+                    + field.getSimpleName() + " is not supported");
+
+        StringBuilder definition = new StringBuilder(affinity);
+        PrimaryKey primaryKey = field.getAnnotation(PrimaryKey.class);
+        if (primaryKey != null && primaryKey.autoGenerate()) definition.append(" PRIMARY KEY AUTOINCREMENT");
+        if (type.getKind().isPrimitive() || primaryKey != null || hasNonNull(field)) definition.append(" NOT NULL");
+        if (columnInfo != null && !columnInfo.defaultValue().equals(ColumnInfo.VALUE_UNSPECIFIED))
+            definition.append(" DEFAULT ").append(columnInfo.defaultValue());
+        return definition.toString();
+    }
+
+    // The affinity Room gives to a type, null if it needs a TypeConverter other than the DateConverter
+    private static String affinity(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+                return "INTEGER";
+            case FLOAT:
+            case DOUBLE:
+                return "REAL";
+            case ARRAY:
+                return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? "BLOB" : null;
+            case DECLARED:
+                String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+                switch (name) {
+                    case "java.lang.String":
+                        return "TEXT";
+                    case "java.lang.Boolean":
+                    case "java.lang.Byte":
+                    case "java.lang.Short":
+                    case "java.lang.Integer":
+                    case "java.lang.Long":
+                    case "java.lang.Character":
+                    case DATE:
+                        return "INTEGER";
+                    case "java.lang.Float":
+                    case "java.lang.Double":
+                        return "REAL";
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean hasNonNull(Element field) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().getSimpleName().contentEquals("NonNull")) return true;
+        }
+        return false;
+    }
+
+    static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    // The name Room gives to an index without a name, example: index_Note_isDeleted_created_at
+    private static String indexName(String tableName, List<String> columns) {
+        return "index_" + tableName + "_" + String.join("_", columns);
+    }
+
+    private static String quote(String name) {
+        return "`" + name + "`";
+    }
+
+    private static String quote(List<String> names) {
+        List<String> quoted = new ArrayList<>();
+        for (String name : names) {
+            quoted.add(quote(name));
+        }
+        return String.join(", ", quoted);
+    }
+
+    /**
+     * The statements upgrading a database from this schema to the next one, when the changes are additive:
+     * new tables, new columns, new or dropped indices, dropped tables.
+     * An FTS4 table only holds the index of its content table, a changed one is created again and rebuilt.
+     *
+     * @param problems receives the changes that cannot be migrated, such as a removed or modified column
+     * @return the SQL statements, in order
+     */
+    List<String> migrationTo(Schema next, List<String> problems) {
+        List<String> statements = new ArrayList<>();
+        for (Table table : tables.values()) {
+            if (!next.tables.containsKey(table.name))
+                statements.add("DROP TABLE IF EXISTS " + quote(table.name));
+        }
+        for (Table nextTable : next.tables.values()) {
+            Table table = tables.get(nextTable.name);
+            if (nextTable.isFts()) {
+                if (nextTable.equals(table)) continue;
+                if (table != null) statements.add("DROP TABLE IF EXISTS " + quote(table.name));
+                statements.add(nextTable.createSql());
+                // indexes the existing rows, the triggers of Room index the next ones
+                statements.add("INSERT INTO " + quote(nextTable.name) + "(" + quote(nextTable.name) + ") VALUES('rebuild')");
+                continue;
+            }
+            if (table == null || table.isFts()) {
+                if (table != null) statements.add("DROP TABLE IF EXISTS " + quote(table.name));
+                statements.add(nextTable.createSql());
+                for (String index : nextTable.indices.keySet()) {
+                    statements.add(nextTable.createIndexSql(index));
+                }
+                continue;
+            }
+            if (!table.primaryKey.equals(nextTable.primaryKey))
+                problems.add("the primary key of " + table.name + " changed");
+            for (Map.Entry<String, String> column : table.columns.entrySet()) {
+                String nextDefinition = nextTable.columns.get(column.getKey());
+                if (nextDefinition == null)
+                    problems.add(table.name + "." + column.getKey() + " was removed");
+                else if (!nextDefinition.equals(column.getValue()))
+                    problems.add(table.name + "." + column.getKey() + " changed from " + column.getValue()
+                            + " to " + nextDefinition);
+            }
+            for (Map.Entry<String, String> column : nextTable.columns.entrySet()) {
+                if (table.columns.containsKey(column.getKey())) continue;
+                if (column.getValue().contains("PRIMARY KEY")) {
+                    problems.add("the primary key of " + table.name + " changed");
+                    continue;
+                }
+                statements.add("ALTER TABLE " + quote(table.name) + " ADD COLUMN " + quote(column.getKey())
+                        + " " + addedColumnDefinition(column.getValue()));
+            }
+            for (Map.Entry<String, TableIndex> index : table.indices.entrySet()) {
+                if (!index.getValue().equals(nextTable.indices.get(index.getKey())))
+                    statements.add("DROP INDEX IF EXISTS " + quote(index.getKey()));
+            }
+            for (Map.Entry<String, TableIndex> index : nextTable.indices.entrySet()) {
+                if (!index.getValue().equals(table.indices.get(index.getKey())))
+                    statements.add(nextTable.createIndexSql(index.getKey()));
+            }
+        }
+        return statements;
+    }
+
+    // SQLite only adds a NOT NULL column with a default value, the existing rows get the zero of the type
+    private static String addedColumnDefinition(String definition) {
+        if (!definition.contains("NOT NULL") || definition.contains("DEFAULT")) return definition;
+        if (definition.startsWith("TEXT")) return definition + " DEFAULT ''";
+        if (definition.startsWith("BLOB")) return definition + " DEFAULT x''";
+        return definition + " DEFAULT 0";
+    }
+
+    /**
+     * Example:
+     * <pre>
+     * table Note
+     * column id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL
+     * column title TEXT
+     * index index_Note_created_at created_at
+     * table NoteFts
+     * fts4 Note
+     * column title TEXT
+     * </pre>
+     */
+    List<String> toLines() {
+        List<String> lines = new ArrayList<>();
+        for (Table table : tables.values()) {
+            lines.add("table " + table.name);
+            if (table.isFts()) lines.add("fts4 " + table.content);
+            for (Map.Entry<String, String> column : table.columns.entrySet()) {
+                lines.add("column " + column.getKey() + " " + column.getValue());
+            }
+            if (!table.primaryKey.isEmpty())
+                lines.add("primaryKey " + String.join(",", table.primaryKey));
+            for (Map.Entry<String, TableIndex> index : table.indices.entrySet()) {
+                lines.add((index.getValue().unique ? "uniqueIndex " : "index ") + index.getKey() + " "
+                        + String.join(",", index.getValue().columns));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line cannot be read
+     */
+    static Schema fromLines(List<String> lines) {
+        Schema schema = new Schema();
+        Table table = null;
+        for (String line : lines) {
+            if (line.trim().isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.trim().split(" ", 3);
+            if (parts[0].equals("table")) {
+                table = new Table(parts[1]);
+                schema.addTable(table);
+            } else if (table != null && parts[0].equals("fts4") && parts.length == 2) {
+                table.setContent(parts[1]);
+            } else if (table != null && parts[0].equals("column") && parts.length == 3) {
+                table.addColumn(parts[1], parts[2]);
+            } else if (table != null && parts[0].equals("primaryKey")) {
+                table.setPrimaryKey(Arrays.asList(parts[1].split(",")));
+            } else if (table != null && (parts[0].equals("index") || parts[0].equals("uniqueIndex")) && parts.length == 3) {
+                table.addIndex(parts[1], parts[0].equals("uniqueIndex"), Arrays.asList(parts[2].split(",")));
+            } else {
+                throw new IllegalArgumentException("unexpected line: " + line);
+            }
+        }
+        return schema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Schema && tables.equals(((Schema) o).tables));
+    }
+
+    @Override
+    public int hashCode() {
+        return tables.hashCode();
+    }
+}
@@ -0,0 +1,114 @@
+package com.pentabin.livingroom.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The schemas of all the versions of the database, one file per version in the livingroom directory
+ * of the livingroom.schemaLocation option: livingroom/1.schema, livingroom/2.schema...
+ * <p>
+ * The schema of the version given by @LivingRoomConfig is saved the first time it is built, and compared
+ * with the entities by the next builds. The files must be kept under version control with the schemas
+ * exported by Room: the migrations are computed from them.
+ */
+class SchemaHistory {
+    static final String DIRECTORY = "livingroom";
+    private static final String EXTENSION = ".schema";
+
+    private final File directory;
+    private final TreeMap<Integer, Schema> versions = new TreeMap<>();
+
+    /**
+     * A step between two versions, its statements are empty if the changes could not be migrated.
+     */
+    static class Step {
+        final int from;
+        final int to;
+        final List<String> statements;
+        final List<String> problems;
+
+        Step(int from, int to, List<String> statements, List<String> problems) {
+            this.from = from;
+            this.to = to;
+            this.statements = statements;
+            this.problems = problems;
+        }
+
+        boolean isMigrated() {
+            return problems.isEmpty();
+        }
+    }
+
+    /**
+     * @param schemaLocation the livingroom.schemaLocation option
+     * @throws IOException if a schema cannot be read
+     */
+    SchemaHistory(File schemaLocation) throws IOException {
+        this.directory = new File(schemaLocation, DIRECTORY);
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(EXTENSION)) continue;
+            try {
+                int version = Integer.parseInt(name.substring(0, name.length() - EXTENSION.length()));
+                versions.put(version, Schema.fromLines(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid schema " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the version of the first schema, 0 if there is none
+     */
+    int getFirstVersion() {
+        return versions.isEmpty() ? 0 : versions.firstKey();
+    }
+
+    /**
+     * @return the version of the last schema, 0 if there is none
+     */
+    int getVersion() {
+        return versions.isEmpty() ? 0 : versions.lastKey();
+    }
+
+    /**
+     * Saves the schema of the version, unless the version is already saved.
+     * @return false if the saved schema of the version differs from the given one
+     */
+    boolean save(int version, Schema schema) throws IOException {
+        Schema saved = versions.get(version);
+        if (saved != null) return saved.equals(schema);
+        List<String> lines = new ArrayList<>();
+        lines.add("# LivingRoom schema " + version + ", generated: keep it under version control, do not edit");
+        lines.addAll(schema.toLines());
+        Files.createDirectories(directory.toPath());
+        Files.write(new File(directory, version + EXTENSION).toPath(), lines, StandardCharsets.UTF_8);
+        versions.put(version, schema);
+        return true;
+    }
+
+    /**
+     * @return the steps between the consecutive versions, from the oldest
+     */
+    List<Step> getSteps() {
+        List<Step> steps = new ArrayList<>();
+        Map.Entry<Integer, Schema> previous = null;
+        for (Map.Entry<Integer, Schema> version : versions.entrySet()) {
+            if (previous != null && previous.getKey() + 1 == version.getKey()) {
+                List<String> problems = new ArrayList<>();
+                List<String> statements = previous.getValue().migrationTo(version.getValue(), problems);
+                steps.add(new Step(previous.getKey(), version.getKey(), statements, problems));
+            }
+            previous = version;
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pentabin.livingroom.compiler;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+/**
+ * search(query) of an entity with @Searchable fields: the items not archived matching the query in its FTS table,
+ * the items with the most matches first.
+ * <p>
+ * FTS4 has no bm25(), the rank is the number of matches: offsets() lists 4 numbers per match, separated by spaces.
+ * The Repository escapes the text of the user with FtsQuery, a malformed MATCH would throw on the query thread,
+ * and keeps the LiveData of each query in its QueryCache.
+ */
+public class SearchMethod extends SelectMethod {
+    static final String SEARCH = "search";
+    static final String QUERY_PARAM = "query";
+
+    private final FtsTable ftsTable;
+
+    SearchMethod(EntityClass entityClass, FtsTable ftsTable) {
+        super(SEARCH, "isDeleted = 0", entityClass, null, true);
+        this.ftsTable = ftsTable;
+        this.addParam(ClassName.get(String.class), QUERY_PARAM);
+    }
+
+    // Example: notedao.search(FtsQuery.escape(query))
+    @Override
+    CodeBlock generateRepositorySource(EntityClass entityClass) {
+        return CodeBlock.of("$N.$N($T.escape($N))",
+                entityClass.getDaoClassName().toLowerCase(),
+                getMethodName(),
+                ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "FtsQuery"),
+                QUERY_PARAM);
+    }
+
+    // Example: SELECT Note.* FROM Note JOIN NoteFts ON Note.id = NoteFts.rowid
+    // WHERE NoteFts MATCH :query AND Note.isDeleted = 0
+    // ORDER BY (length(offsets(NoteFts)) - length(replace(offsets(NoteFts), ' ', '')) + 1) / 4 DESC
+    @Override
+    String getQuery() {
+        String entity = getEntityClass().getName();
+        String fts = ftsTable.getName();
+        String offsets = "offsets(" + fts + ")";
+        return "SELECT " + entity + ".* FROM " + entity + " JOIN " + fts + " ON " + entity + ".id = " + fts + ".rowid"
+                + " WHERE " + fts + " MATCH :" + QUERY_PARAM + " AND " + entity + "." + getWhere()
+                + " ORDER BY (length(" + offsets + ") - length(replace(" + offsets + ", ' ', '')) + 1) / 4 DESC";
+    }
+}
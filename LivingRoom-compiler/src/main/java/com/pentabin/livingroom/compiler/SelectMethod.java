@@ -5,6 +5,7 @@ import androidx.room.Query;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
@@ -12,16 +13,24 @@ import com.squareup.javapoet.TypeName;
 import java.util.Iterator;
 import java.util.Map;
 
+import javax.lang.model.element.Modifier;
+
 public class SelectMethod extends LivingroomMethod {
     private static final String LIST = "List";
+    private static final String CACHE = "Cache";
+    private static final String GET = "get";
+    private static final String LOAD = "load";
     private final String where;
-    private boolean isLiveData; // TODO can either be live or not
     private boolean isList;
+    private Projection projection;
+    private String orderBy = "";
+    private int limit;
+    private long throttleMillis;
+    private boolean streamed;
 
     SelectMethod(String methodName, String where, EntityClass entityClass, String[] params, boolean isList) {
         super(entityClass, methodName);
         this.isList = isList;
-        //this.isLiveData = isLiveData;
         this.where = where;
         this.setReturnType(getReturnType());
         this.setAnnotation(Query.class);
@@ -35,40 +44,171 @@ public class SelectMethod extends LivingroomMethod {
         }
     }
 
+    String getWhere() {
+        return where;
+    }
+
+    Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Only the columns of the projection are read, the method returns the projection class instead of the entity.
+     */
+    void setProjection(Projection projection) {
+        this.projection = projection;
+        this.setReturnType(getReturnType());
+    }
+
+    // The type of the rows: the entity or its projection
+    TypeName getResultType() {
+        return projection != null ? projection.getClassName() : getEntityClass().getTypeName();
+    }
+
+    String getSelectList() {
+        return projection != null ? projection.getSelectList() : "*";
+    }
+
+    String getOrderBy() {
+        return orderBy;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param orderBy the ORDER BY clause, empty for none
+     * @param limit the maximum number of rows, 0 for no limit
+     */
+    void setOrder(String orderBy, int limit) {
+        this.orderBy = orderBy.trim();
+        this.limit = limit;
+    }
+
+    /**
+     * @param throttleMillis the minimum time between two runs of the query when the table changes, 0 for none
+     */
+    void setThrottle(long throttleMillis) {
+        this.throttleMillis = throttleMillis;
+    }
+
+    boolean isThrottled() {
+        return throttleMillis > 0;
+    }
+
+    // Example: getAll -> loadAll, archived -> loadArchived
+    String getLoadMethodName() {
+        String name = getMethodName().startsWith(GET) && getMethodName().length() > GET.length()
+                && Character.isUpperCase(getMethodName().charAt(GET.length()))
+                ? getMethodName().substring(GET.length()) : getMethodName();
+        return LOAD + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * The blocking Dao method run by the ThrottledQueryLiveData of a throttled select.
+     */
+    MethodSpec generateLoadDaoMethod() {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(getLoadMethodName())
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", getQuery())
+                        .build())
+                .returns(getReturnType().typeArguments.get(0));
+        getParams().forEach((k, v) -> builder.addParameter(v, k));
+        return builder.build();
+    }
+
+    String getQuery() {
+        return "SELECT " + getSelectList() + " FROM " + getEntityClass().getName() + " WHERE " + where
+                + (orderBy.isEmpty() ? "" : " ORDER BY " + orderBy)
+                + (limit > 0 ? " LIMIT " + limit : "");
+    }
+
     @Override
     public MethodSpec.Builder generateDaoMethod() {
         MethodSpec.Builder methodBuilder = super.generateDaoMethod();
         methodBuilder.addAnnotation(AnnotationSpec.builder(this.getAnnotation())
-                .addMember("value", "\"SELECT * FROM " + getEntityClass().getName() + " WHERE " + where + "\"")
+                .addMember("value", "$S", getQuery())
                 .build());
 
         return methodBuilder;
     }
 
+    // Example: notedao.getAll()
+    // or new ThrottledQueryLiveData<>(livingroomdatabase, 500L, () -> notedao.loadAll(), "Note") when throttled
+    CodeBlock generateRepositorySource(EntityClass entityClass) {
+        if (isThrottled())
+            return CodeBlock.of("new $T<>($N, $LL, () -> $N.$N($N), $S)",
+                    ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "ThrottledQueryLiveData"),
+                    LivingRoomProcessor.dbClassName.toLowerCase(),
+                    throttleMillis,
+                    entityClass.getDaoClassName().toLowerCase(),
+                    getLoadMethodName(),
+                    getParametersString(),
+                    entityClass.getName());
+        return CodeBlock.of("$N.$N($N)",
+                entityClass.getDaoClassName().toLowerCase(),
+                this.getMethodName(),
+                getParametersString());
+    }
+
     @Override
     public MethodSpec.Builder generateRepositoryMethod(EntityClass entityClass) {
         MethodSpec.Builder builder = super.generateMethod();
         CodeBlock.Builder innerCode = CodeBlock.builder();
         if (!this.hasParams()) {
             innerCode = innerCode.beginControlFlow("if ($N == null)", this.getMethodName() + LIST)
-                    .addStatement("$N = $N.$N($N)", this.getMethodName() + LIST,
-                            entityClass.getDaoClassName().toLowerCase(),
-                            this.getMethodName(),
-                            getParametersString())
+                    .addStatement("$N = $L", this.getMethodName() + LIST,
+                            generateRepositorySource(entityClass))
                     .endControlFlow()
                     .addStatement("return $N", this.getMethodName() + LIST);
         }
-        else {
+        else if (isMemoized()) {
             innerCode = innerCode
-                    .addStatement("return $N.$N($N)",
-                            entityClass.getDaoClassName().toLowerCase(),
-                            this.getMethodName(),
+                    .addStatement("return $N.get(() -> $L, $N)", getCacheFieldName(),
+                            generateRepositorySource(entityClass),
                             getParametersString());
         }
+        else {
+            innerCode = innerCode.addStatement("return $L", generateRepositorySource(entityClass));
+        }
         builder.addCode(innerCode.build());
         return builder;
     }
 
+    /**
+     * A streamed select also gets a forEach method, reading it in chunks by keyset pagination.
+     */
+    boolean isStreamed() {
+        return streamed;
+    }
+
+    void setStreamed() {
+        this.streamed = true;
+    }
+
+    /**
+     * The Repository keeps the LiveData of the selects with parameters in a QueryCache.
+     * A Flowable is not kept, it only runs the query while it is subscribed.
+     */
+    boolean isMemoized() {
+        return hasParams() && !getEntityClass().isReactive();
+    }
+
+    String getCacheFieldName() {
+        return this.getMethodName() + CACHE;
+    }
+
+    // Example: private final QueryCache<List<Note>> getDateRangeCache = new QueryCache<>();
+    FieldSpec generateCacheField() {
+        TypeName result = getReturnType().typeArguments.get(0);
+        return FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "QueryCache"), result),
+                getCacheFieldName(), Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("new $T<>()", ClassName.get(LivingRoomProcessor.RUNTIME_PACKAGE, "QueryCache"))
+                .build();
+    }
+
     // TODO Repo and VM are similar
     @Override
     public MethodSpec.Builder generateViewModelMethod(EntityClass entityClass){
@@ -94,15 +234,18 @@ public class SelectMethod extends LivingroomMethod {
         return builder;
     }
 
+    // Example: LiveData<List<Note>>, or Flowable<List<Note>> for a @Reactive entity
     ParameterizedTypeName getReturnType(){
-        ClassName liveDataClass = ClassName.get("androidx.lifecycle", "LiveData");
+        ClassName observableClass = getEntityClass().isReactive()
+                ? ClassName.get(EntityClass.RX_PACKAGE, "Flowable")
+                : ClassName.get("androidx.lifecycle", "LiveData");
         ClassName listClass = ClassName.get("java.util", LIST);
         return isList?
-                ParameterizedTypeName.get(liveDataClass, ParameterizedTypeName.get(listClass, getEntityClass().getTypeName()))
-                : ParameterizedTypeName.get(liveDataClass,getEntityClass().getTypeName());
+                ParameterizedTypeName.get(observableClass, ParameterizedTypeName.get(listClass, getResultType()))
+                : ParameterizedTypeName.get(observableClass, getResultType());
     }
 
-    private String getParametersString(){
+    String getParametersString(){
         if (!hasParams()) return "";
         StringBuilder parameters = new StringBuilder();
         Iterator<Map.Entry<String, TypeName>> iterator = getParams().entrySet().iterator();
@@ -0,0 +1,92 @@
+package com.pentabin.livingroom.compiler;
+
+import androidx.room.Transaction;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+
+import java.util.List;
+
+import javax.lang.model.element.Modifier;
+
+import static com.pentabin.livingroom.compiler.EntityClass.INSERT_IF_ABSENT;
+import static com.pentabin.livingroom.compiler.EntityClass.LOAD_CREATED_AT;
+import static com.pentabin.livingroom.compiler.EntityClass.UPDATE_EXISTING;
+import static com.pentabin.livingroom.compiler.EntityClass.UPSERT_AT;
+import static com.pentabin.livingroom.compiler.EntityClass.WRITE_BEHIND_FIELD;
+
+/**
+ * upsert(item) and upsertAll(items): inserts the items, or updates the rows that already have their id.
+ * <p>
+ * The Dao method is a default method run in a transaction: an insert ignoring the conflicts, then an update of the row
+ * if it exists, keeping its created_at. A row is never deleted and reinserted, unlike OnConflictStrategy.REPLACE
+ * which breaks the foreign keys pointing to it. The insert also ignores the other constraint failures:
+ * when no row has the id of the item either, nothing is written and the id is -1.
+ * The clock is read once per call, a batch gets a single timestamp.
+ * The Repository writes it like insert(), returning the ids.
+ */
+public class UpsertMethod extends AsyncMethod {
+    static final String UPSERT = "upsert";
+    static final String UPSERT_ALL = "upsertAll";
+
+    UpsertMethod(EntityClass entityClass, boolean batch) {
+        super(entityClass, batch ? UPSERT_ALL : UPSERT, batch);
+        setAnnotation(Transaction.class);
+        TypeName type = entityClass.getTypeName();
+        addParam(batch ? ParameterizedTypeName.get(ClassName.get(List.class), type) : type, itemParam(batch));
+        setReturnType(batch ? ArrayTypeName.of(TypeName.LONG) : TypeName.LONG);
+    }
+
+    @Override
+    boolean insertsItems() {
+        return true;
+    }
+
+    // An upsert overwrites the whole row, the pending update of the item is dropped like for a delete
+    @Override
+    CodeBlock getPreCode() {
+        if (!getEntityClass().hasWriteBehind()) return null;
+        return CodeBlock.of("$N.$N($N);\n", WRITE_BEHIND_FIELD, isBatch() ? "discardAll" : "discard", itemParam(isBatch()));
+    }
+
+    // Example: return upsertAt(item, new Date(LivingRoomClock.getInstance().currentTimeMillis()))
+    @Override
+    public MethodSpec.Builder generateDaoMethod() {
+        MethodSpec.Builder builder = generateMethod()
+                .addModifiers(Modifier.DEFAULT)
+                .addAnnotation(Transaction.class)
+                .addStatement("$T now = $L", getEntityClass().getTimestampType(), getEntityClass().currentTimestamp());
+        if (isBatch()) return builder
+                .addStatement("long[] ids = new long[items.size()]")
+                .beginControlFlow("for (int i = 0; i < ids.length; i++)")
+                .addStatement("ids[i] = $N(items.get(i), now)", UPSERT_AT)
+                .endControlFlow()
+                .addStatement("return ids");
+        return builder.addStatement("return $N(item, now)", UPSERT_AT);
+    }
+
+    /**
+     * The upsert of one item at the given time, called by upsert and upsertAll in their transaction.
+     */
+    static MethodSpec generateUpsertAtMethod(EntityClass entityClass) {
+        return MethodSpec.methodBuilder(UPSERT_AT)
+                .addModifiers(Modifier.PUBLIC, Modifier.DEFAULT)
+                .returns(TypeName.LONG)
+                .addParameter(entityClass.getTypeName(), "item")
+                .addParameter(entityClass.getTimestampType(), "now")
+                .addStatement("item.setCreated_at(now)")
+                .addStatement("long id = $N(item)", INSERT_IF_ABSENT)
+                .addStatement("if (id != -1) return id")
+                .addComment("a row may have the id, it keeps its created_at")
+                .addStatement("item.setCreated_at($N(item.getId()))", LOAD_CREATED_AT)
+                .addStatement("item.setUpdated_at(now)")
+                .addComment("no row has the id: the insert failed on another constraint")
+                .addStatement("if ($N(item) == 0) return -1", UPDATE_EXISTING)
+                .addStatement("return item.getId()")
+                .build();
+    }
+}
@@ -0,0 +1,449 @@
+package com.pentabin.livingroom.compiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+
+/**
+ * Golden output of the processors: the generated classes must stay equivalent to the files in resources/golden.
+ * After an intended change of the generated code, update the golden files.
+ * Each golden entity (Note, task/Task, log/Log) is compiled alone and compared with the files next to it.
+ */
+public class LivingRoomProcessorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Compilation compileGolden(String path) {
+        return TestSources.compile(JavaFileObjects.forResource("golden/" + path));
+    }
+
+    private static Compilation compileNote() {
+        return compileGolden("Note.java");
+    }
+
+    private static void assertGenerated(Compilation compilation, String directory, String className) {
+        assertThat(compilation).succeeded();
+        assertThat(compilation)
+                .generatedSourceFile(TestSources.PACKAGE + "." + className)
+                .hasSourceEquivalentTo(JavaFileObjects.forResource("golden/" + directory + className + ".java"));
+    }
+
+    private static void assertGenerated(Compilation compilation, String className) {
+        assertGenerated(compilation, "", className);
+    }
+
+    private static void assertContains(Compilation compilation, String className, String... snippets) {
+        assertThat(compilation).succeeded();
+        for (String snippet : snippets) {
+            assertThat(compilation).generatedSourceFile(TestSources.PACKAGE + "." + className)
+                    .contentsAsUtf8String()
+                    .contains(snippet);
+        }
+    }
+
+    @Test
+    public void generatesDao() {
+        assertGenerated(compileNote(), "NoteDao");
+    }
+
+    @Test
+    public void generatesRepository() {
+        assertGenerated(compileNote(), "NoteRepository");
+    }
+
+    @Test
+    public void generatesViewModel() {
+        assertGenerated(compileNote(), "NoteViewModel");
+    }
+
+    @Test
+    public void generatesDatabase() {
+        assertGenerated(compileNote(), "LivingRoomDatabase");
+    }
+
+    @Test
+    public void generatesRepositories() {
+        assertGenerated(compileNote(), "LivingRoomRepositories");
+    }
+
+    @Test
+    public void generatesDiffCallback() {
+        assertGenerated(compileNote(), "NoteDiffCallback");
+    }
+
+    @Test
+    public void generatesListAdapter() {
+        assertGenerated(compileNote(), "NoteListAdapter");
+    }
+
+    // Task: the single-column updates of its @UpdatableField fields
+    @Test
+    public void generatesTaskDao() {
+        assertGenerated(compileGolden("task/Task.java"), "task/", "TaskDao");
+    }
+
+    @Test
+    public void generatesTaskRepository() {
+        assertGenerated(compileGolden("task/Task.java"), "task/", "TaskRepository");
+    }
+
+    @Test
+    public void generatesTaskViewModel() {
+        assertGenerated(compileGolden("task/Task.java"), "task/", "TaskViewModel");
+    }
+
+    // Log: the Flowable, Single and Completable of a @Reactive entity
+    @Test
+    public void generatesReactiveDao() {
+        assertGenerated(compileGolden("log/Log.java"), "log/", "LogDao");
+    }
+
+    @Test
+    public void generatesReactiveRepository() {
+        assertGenerated(compileGolden("log/Log.java"), "log/", "LogRepository");
+    }
+
+    @Test
+    public void generatesReactiveViewModel() {
+        assertGenerated(compileGolden("log/Log.java"), "log/", "LogViewModel");
+    }
+
+    @Test
+    public void appliesConfig() {
+        JavaFileObject config = TestSources.source("AppConfig",
+                "import com.pentabin.livingroom.annotations.LivingRoomConfig;",
+                "",
+                "@LivingRoomConfig(name = \"notes.db\", journalMode = LivingRoomConfig.JournalMode.WRITE_AHEAD_LOGGING,",
+                "        mmapSize = 268435456, multiInstanceInvalidation = true)",
+                "public class AppConfig {",
+                "}");
+        Compilation compilation = TestSources.compile(JavaFileObjects.forResource("golden/Note.java"), config);
+
+        assertContains(compilation, "LivingRoomDatabase",
+                "LivingRoomDatabase.class, \"notes.db\")",
+                ".setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)",
+                "Pragmas.run(db, \"PRAGMA mmap_size = 268435456\");");
+    }
+
+    @Test
+    public void rejectsAbstractExecutor() {
+        JavaFileObject config = TestSources.source("AppConfig",
+                "@com.pentabin.livingroom.annotations.LivingRoomConfig(queryExecutor = AppConfig.Pool.class)",
+                "public class AppConfig {",
+                "    public abstract static class Pool implements java.util.concurrent.Executor {",
+                "    }",
+                "}");
+        Compilation compilation = TestSources.compile(JavaFileObjects.forResource("golden/Note.java"), config);
+        assertThat(compilation).hadErrorContaining("queryExecutor of @LivingRoomConfig must be a concrete class");
+    }
+
+    @Test
+    public void purgesArchivedItems() {
+        JavaFileObject entity = TestSources.source("Message",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "@com.pentabin.livingroom.annotations.Archivable(purgeAfterDays = 30)",
+                "public class Message extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "MessageDao", "DELETE FROM Message WHERE id IN (SELECT id FROM Message "
+                + "WHERE isDeleted = 1 AND updated_at < :cutoff LIMIT :limit)");
+        assertContains(compilation, "LivingRoomDatabase",
+                "(now, limit) -> messagedao().purgeArchived(now - 2592000000L, limit));");
+    }
+
+    @Test
+    public void generatesSearch() {
+        JavaFileObject entity = TestSources.source("Article",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "public class Article extends com.pentabin.livingroom.BasicEntity {",
+                "    @com.pentabin.livingroom.annotations.Searchable",
+                "    public String title;",
+                "    @com.pentabin.livingroom.annotations.Searchable",
+                "    @androidx.room.ColumnInfo(name = \"body\")",
+                "    public String content;",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "ArticleFts", "@Fts4(\n    contentEntity = Article.class\n)");
+        assertContains(compilation, "ArticleDao",
+                "SELECT Article.* FROM Article JOIN ArticleFts ON Article.id = ArticleFts.rowid "
+                        + "WHERE ArticleFts MATCH :query AND Article.isDeleted = 0 "
+                        + "ORDER BY (length(offsets(ArticleFts)) - length(replace(offsets(ArticleFts), ' ', '')) + 1) / 4 DESC");
+        assertContains(compilation, "ArticleRepository",
+                "return searchCache.get(() -> articledao.search(FtsQuery.escape(query)), query);");
+        assertContains(compilation, "LivingRoomDatabase", "entities = {Article.class, ArticleFts.class}");
+    }
+
+    @Test
+    public void rejectsSearchableNonString() {
+        JavaFileObject entity = TestSources.source("Counter",
+                "@androidx.room.Entity",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "public class Counter extends com.pentabin.livingroom.BasicEntity {",
+                "    @com.pentabin.livingroom.annotations.Searchable",
+                "    public int count;",
+                "}");
+        Compilation compilation = TestSources.compile(TestSources.compiler(new LivingRoomProcessor()), entity);
+        assertThat(compilation).hadErrorContaining("@Searchable can only be used on a String field");
+    }
+
+    @Test
+    public void generatesReactive() {
+        JavaFileObject entity = TestSources.source("Log",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "@com.pentabin.livingroom.annotations.Reactive",
+                "public class Log extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "LogDao", "Flowable<List<Log>> getAll();");
+        assertContains(compilation, "LogRepository",
+                "return Single.fromCallable(() -> logdao.insert(item)).subscribeOn(writeScheduler);",
+                "return Completable.fromAction(() -> logdao.delete(item)).subscribeOn(writeScheduler);");
+    }
+
+    @Test
+    public void generatesUpsert() {
+        JavaFileObject entity = TestSources.source("Contact",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Upsertable",
+                "public class Contact extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "ContactDao",
+                "onConflict = OnConflictStrategy.IGNORE",
+                "item.setCreated_at(loadCreatedAt(item.getId()));",
+                "if (updateExisting(item) == 0) return -1;",
+                // one timestamp for the whole batch
+                "ids[i] = upsertAt(items.get(i), now);");
+        assertContains(compilation, "ContactRepository",
+                "return executors.write(() -> contactdao.upsertAll(items)).get();");
+        assertContains(compilation, "LivingRoomDatabase", "Contact.class");
+    }
+
+    @Test
+    public void generatesFieldUpdate() {
+        JavaFileObject entity = TestSources.source("Memo",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "public class Memo extends com.pentabin.livingroom.BasicEntity {",
+                "    @com.pentabin.livingroom.annotations.UpdatableField",
+                "    @androidx.room.ColumnInfo(name = \"memo_title\")",
+                "    public String title;",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "MemoDao",
+                "@Query(\"UPDATE Memo SET memo_title = :title, updated_at = :updated_at WHERE id = :id\")");
+        assertContains(compilation, "MemoRepository",
+                "executors.writer().execute(() -> memodao.updateTitle(id, title, now));");
+        assertContains(compilation, "MemoViewModel", "public void updateTitle(long id, String title)");
+    }
+
+    @Test
+    public void throttlesSelect() {
+        JavaFileObject entity = TestSources.source("Reading",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "@com.pentabin.livingroom.annotations.SelectableAll(throttleMillis = 500)",
+                "public class Reading extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(entity);
+
+        assertContains(compilation, "ReadingDao", "List<Reading> loadAll();");
+        assertContains(compilation, "ReadingRepository",
+                "new ThrottledQueryLiveData<>(livingroomdatabase, 500L, () -> readingdao.loadAll(), \"Reading\")");
+    }
+
+    @Test
+    public void rejectsStreamedSelectWithOrder() {
+        JavaFileObject entity = TestSources.source("Entry",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.SelectableAll(orderBy = \"created_at DESC\", limit = 20, streamed = true)",
+                "public class Entry extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(TestSources.compiler(new LivingRoomProcessor()), entity);
+        assertThat(compilation).hadErrorContaining("The streamed getAll() cannot have an orderBy or a limit");
+    }
+
+    @Test
+    public void rejectsParamsOfTheKeysetMethods() {
+        JavaFileObject entity = TestSources.source("Entry",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.SelectableWhere(methodName = \"getTop\", where = \"id < :limit\",",
+                "        params = {\"long limit\"}, streamed = true)",
+                "public class Entry extends com.pentabin.livingroom.BasicEntity {",
+                "}");
+        Compilation compilation = TestSources.compile(TestSources.compiler(new LivingRoomProcessor()), entity);
+        assertThat(compilation).hadErrorContaining("The parameter limit of getTop() is reserved");
+    }
+
+    // The schema history of Note before its content column, with the columns removed since
+    private File noteHistory(String... removedColumns) throws IOException {
+        File schemaLocation = temporaryFolder.newFolder();
+        File history = new File(schemaLocation, SchemaHistory.DIRECTORY);
+        Files.createDirectories(history.toPath());
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                "table Note",
+                "column id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL",
+                "column isDeleted INTEGER NOT NULL",
+                "column created_at INTEGER",
+                "column updated_at INTEGER",
+                "column title TEXT",
+                "index index_Note_created_at created_at",
+                "index index_Note_isDeleted_created_at isDeleted,created_at"));
+        lines.addAll(2, Arrays.asList(removedColumns));
+        Files.write(new File(history, "1.schema").toPath(), lines, StandardCharsets.UTF_8);
+        return schemaLocation;
+    }
+
+    private static JavaFileObject config(int version) {
+        return config("version = " + version);
+    }
+
+    private static JavaFileObject config(String attributes) {
+        return TestSources.source("Config",
+                "@com.pentabin.livingroom.annotations.LivingRoomConfig(" + attributes + ")",
+                "class Config {",
+                "}");
+    }
+
+    private static Compilation compileWithHistory(File schemaLocation, JavaFileObject... sources) {
+        return TestSources.compile(TestSources.compiler(new LivingRoomProcessor(), new LivingRoomDatabaseProcessor())
+                .withOptions("-proc:only", "-A" + LivingRoomDatabaseProcessor.SCHEMA_LOCATION_OPTION + "=" + schemaLocation),
+                sources);
+    }
+
+    @Test
+    public void migratesAddedColumn() throws IOException {
+        File schemaLocation = noteHistory();
+        Compilation compilation = compileWithHistory(schemaLocation,
+                JavaFileObjects.forResource("golden/Note.java"), config(2));
+
+        assertContains(compilation, "LivingRoomDatabase",
+                "db.execSQL(\"ALTER TABLE `Note` ADD COLUMN `content` TEXT\");",
+                ".addMigrations(MIGRATION_1_2)",
+                "version = 2");
+        if (!new File(schemaLocation, SchemaHistory.DIRECTORY + "/2.schema").exists())
+            throw new AssertionError("the version 2 is not saved");
+    }
+
+    @Test
+    public void rejectsUnmigratedStep() throws IOException {
+        File schemaLocation = noteHistory("column priority INTEGER NOT NULL");
+        Compilation compilation = compileWithHistory(schemaLocation,
+                JavaFileObjects.forResource("golden/Note.java"), config(2));
+
+        assertThat(compilation).hadErrorContaining("No migration from version 1 to 2");
+    }
+
+    @Test
+    public void clearsUnmigratedStepOnRequest() throws IOException {
+        File schemaLocation = noteHistory("column priority INTEGER NOT NULL");
+        Compilation compilation = compileWithHistory(schemaLocation,
+                JavaFileObjects.forResource("golden/Note.java"), config("version = 2, fallbackToDestructiveMigration = true"));
+
+        assertThat(compilation).hadWarningContaining("the upgrade clears the database");
+        assertContains(compilation, "LivingRoomDatabase", ".fallbackToDestructiveMigration()");
+    }
+
+    @Test
+    public void rejectsChangedSchemaOfSavedVersion() throws IOException {
+        File schemaLocation = noteHistory();
+        Compilation compilation = compileWithHistory(schemaLocation, JavaFileObjects.forResource("golden/Note.java"));
+
+        assertThat(compilation).hadErrorContaining("no longer match the saved schema of version 1");
+        if (new File(schemaLocation, SchemaHistory.DIRECTORY + "/2.schema").exists())
+            throw new AssertionError("a version is saved without @LivingRoomConfig(version)");
+    }
+
+    @Test
+    public void rejectsVersionOlderThanHistory() throws IOException {
+        File schemaLocation = noteHistory();
+        Files.copy(new File(schemaLocation, SchemaHistory.DIRECTORY + "/1.schema").toPath(),
+                new File(schemaLocation, SchemaHistory.DIRECTORY + "/3.schema").toPath());
+        Compilation compilation = compileWithHistory(schemaLocation,
+                JavaFileObjects.forResource("golden/Note.java"), config(2));
+
+        assertThat(compilation).hadErrorContaining("is older than the saved version 3");
+    }
+
+    @Test
+    public void skipsHistoryOfUnsupportedColumn() throws IOException {
+        JavaFileObject entity = TestSources.source("Sensor",
+                "@androidx.room.Entity",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "public class Sensor extends com.pentabin.livingroom.BasicEntity {",
+                "    public enum Kind { TEMPERATURE, HUMIDITY }",
+                "    public Kind kind;",
+                "}");
+        File schemaLocation = temporaryFolder.newFolder();
+        Compilation compilation = compileWithHistory(schemaLocation, entity);
+
+        assertThat(compilation).succeeded();
+        assertThat(compilation).hadWarningContaining("no migration is generated, the type " + TestSources.PACKAGE
+                + ".Sensor.Kind of Sensor.kind is not supported");
+        if (new File(schemaLocation, SchemaHistory.DIRECTORY).exists())
+            throw new AssertionError("a partial schema is saved");
+    }
+
+    @Test
+    public void ignoresRoomSchemaLocation() throws IOException {
+        File schemaLocation = noteHistory();
+        Compilation compilation = TestSources.compile(TestSources.compiler(new LivingRoomProcessor(), new LivingRoomDatabaseProcessor())
+                .withOptions("-proc:only", "-A" + LivingRoomDatabaseProcessor.ROOM_SCHEMA_LOCATION_OPTION + "=" + schemaLocation),
+                JavaFileObjects.forResource("golden/Note.java"));
+
+        // the history of version 1 lacks the content column, it is not read
+        assertContains(compilation, "LivingRoomDatabase", "exportSchema = true");
+    }
+
+    @Test
+    public void rejectsEntityNotExtendingBasicEntity() {
+        JavaFileObject entity = TestSources.source("Plain",
+                "@androidx.room.Entity",
+                "@com.pentabin.livingroom.annotations.Insertable",
+                "public class Plain {",
+                "}");
+        Compilation compilation = TestSources.compile(TestSources.compiler(new LivingRoomProcessor()), entity);
+        assertThat(compilation).hadErrorContaining("must inherit from BasicEntity");
+    }
+
+    @Test
+    public void generatesMillisTimestamps() {
+        JavaFileObject base = TestSources.source("Timed",
+                "public abstract class Timed extends com.pentabin.livingroom.BasicMillisEntity {",
+                "}");
+        JavaFileObject entity = TestSources.source("Event",
+                "@androidx.room.Entity(inheritSuperIndices = true)",
+                "@com.pentabin.livingroom.annotations.Crudable",
+                "public class Event extends Timed {",
+                "}");
+        Compilation compilation = TestSources.compile(base, entity);
+
+        assertContains(compilation, "EventRepository",
+                "item.setCreated_at(LivingRoomClock.getInstance().currentTimeMillis());",
+                "long now = LivingRoomClock.getInstance().currentTimeMillis();");
+    }
+}
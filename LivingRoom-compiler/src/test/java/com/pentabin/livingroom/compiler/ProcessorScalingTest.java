@@ -0,0 +1,160 @@
+package com.pentabin.livingroom.compiler;
+
+import com.google.testing.compile.Compilation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the processors with 10, 100 and 1000 generated @Crudable entities, and checks that the cost of an entity
+ * stays within a budget: a change making the generation quadratic, or much heavier, fails this test.
+ * <p>
+ * It takes a while and allocates a few GB, so it only runs when the livingroom.benchmark property is set:
+ * ./gradlew :LivingRoom-compiler:test --tests '*ProcessorScalingTest' -Plivingroom.benchmark
+ */
+public class ProcessorScalingTest {
+    // Per entity: Dao, Repository and ViewModel
+    private static final int CLASSES_PER_ENTITY = 3;
+    // Per entity, for both processors: about 5 MB and 5 ms when measured, with room for slower machines
+    private static final long ALLOCATED_BYTES_BUDGET = 10L * 1024 * 1024;
+    private static final long NANOS_BUDGET = 50_000_000L;
+
+    @Before
+    public void enabled() {
+        assumeTrue("set livingroom.benchmark to run it", Boolean.getBoolean("livingroom.benchmark"));
+    }
+
+    @Test
+    public void tenEntities() {
+        measure(10);
+    }
+
+    @Test
+    public void hundredEntities() {
+        measure(100);
+    }
+
+    @Test
+    public void thousandEntities() {
+        measure(1000);
+    }
+
+    private static void measure(int count) {
+        // a first compilation loads the classes of javac and of the processors
+        TestSources.compiler(new LivingRoomProcessor(), new LivingRoomDatabaseProcessor())
+                .compile(TestSources.crudableEntities(1));
+
+        MeasuredProcessor entities = new MeasuredProcessor(new LivingRoomProcessor());
+        MeasuredProcessor database = new MeasuredProcessor(new LivingRoomDatabaseProcessor());
+        Compilation compilation = TestSources.compiler(entities, database)
+                .compile(TestSources.crudableEntities(count));
+
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile(TestSources.PACKAGE + ".LivingRoomDatabase");
+        assertThat(compilation).generatedSourceFile(TestSources.PACKAGE + ".Entity" + (count - 1) + "ViewModel");
+        // + 2 for the database and the repositories
+        assertEquals(count * CLASSES_PER_ENTITY + 2, compilation.generatedSourceFiles().size());
+
+        long nanos = entities.nanos() + database.nanos();
+        assertTrue(count + " entities processed in " + nanos / 1_000_000 + " ms",
+                nanos <= NANOS_BUDGET * count);
+        long bytes = entities.allocatedBytes() + database.allocatedBytes();
+        assumeTrue("the JVM cannot measure the allocations", bytes >= 0);
+        assertTrue(count + " entities processed with " + bytes / 1024 + " KB allocated",
+                bytes <= ALLOCATED_BYTES_BUDGET * count);
+    }
+
+    /**
+     * Delegates to a processor and records the duration and the allocations of each call to process().
+     */
+    private static class MeasuredProcessor implements Processor {
+        private final Processor delegate;
+        private final List<long[]> rounds = new ArrayList<>(); // {nanoseconds, bytes}
+
+        MeasuredProcessor(Processor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            long bytes = threadAllocatedBytes();
+            long start = System.nanoTime();
+            boolean result = delegate.process(annotations, roundEnv);
+            rounds.add(new long[]{System.nanoTime() - start, bytes < 0 ? -1 : threadAllocatedBytes() - bytes});
+            return result;
+        }
+
+        long nanos() {
+            long total = 0;
+            for (long[] round : rounds) {
+                total += round[0];
+            }
+            return total;
+        }
+
+        // -1 when the JVM cannot measure the allocations
+        long allocatedBytes() {
+            long total = 0;
+            for (long[] round : rounds) {
+                if (round[1] < 0) return -1;
+                total += round[1];
+            }
+            return total;
+        }
+
+        // -1 when the JVM cannot measure the allocations of a thread
+        private static long threadAllocatedBytes() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return -1;
+        }
+
+        @Override
+        public Set<String> getSupportedOptions() {
+            return delegate.getSupportedOptions();
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return delegate.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return delegate.getSupportedSourceVersion();
+        }
+
+        @Override
+        public void init(ProcessingEnvironment processingEnv) {
+            delegate.init(processingEnv);
+        }
+
+        @Override
+        public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation,
+                                                             ExecutableElement member, String userText) {
+            return delegate.getCompletions(element, annotation, member, userText);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.pentabin.livingroom.compiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaFileObject;
+
+/**
+ * Sources given to the processors in the tests.
+ * <p>
+ * The runtime module is an Android library, so BasicEntity is declared here. The tests run with -proc:only:
+ * the generated classes are checked as sources, they are not compiled against the Android classes.
+ */
+final class TestSources {
+    static final String PACKAGE = "com.example.bench";
+
+    private TestSources() {
+    }
+
+    static JavaFileObject basicEntity() {
+        return basicEntity("BasicEntity", "Date");
+    }
+
+    static JavaFileObject basicMillisEntity() {
+        return basicEntity("BasicMillisEntity", "long");
+    }
+
+    private static JavaFileObject basicEntity(String name, String timestampType) {
+        return JavaFileObjects.forSourceLines("com.pentabin.livingroom." + name,
+                "package com.pentabin.livingroom;",
+                "",
+                "import androidx.room.Entity;",
+                "import androidx.room.Index;",
+                "import java.util.Date;",
+                "",
+                "@Entity(indices = {@Index({\"isDeleted\", \"created_at\"}), @Index(\"created_at\")})",
+                "public abstract class " + name + " extends LivingRoomEntity {",
+                "    private " + timestampType + " created_at;",
+                "    private " + timestampType + " updated_at;",
+                "    public " + timestampType + " getCreated_at() { return created_at; }",
+                "    public " + timestampType + " getUpdated_at() { return updated_at; }",
+                "}");
+    }
+
+    // The Android and runtime types in the signatures of the generated classes, with -proc:only their bodies are not compiled
+    static List<JavaFileObject> runtimeStubs() {
+        List<JavaFileObject> stubs = new ArrayList<>();
+        stubs.add(stub("android.app.Application", "public class Application {}"));
+        stubs.add(stub("android.content.Context", "public class Context {}"));
+        stubs.add(stub("androidx.lifecycle.LiveData", "public abstract class LiveData<T> {}"));
+        stubs.add(stub("androidx.lifecycle.AndroidViewModel", "public class AndroidViewModel {"
+                + " public AndroidViewModel(android.app.Application app) {} protected void onCleared() {} }"));
+        stubs.add(stub("androidx.room.RoomDatabase", "public abstract class RoomDatabase {"
+                + " public enum JournalMode { AUTOMATIC, TRUNCATE, WRITE_AHEAD_LOGGING }"
+                + " public abstract static class Callback {} }"));
+        stubs.add(stub("androidx.room.Room", "public class Room {}"));
+        stubs.add(stub("androidx.room.migration.Migration", "public abstract class Migration {}"));
+        stubs.add(stub("androidx.sqlite.db.SupportSQLiteDatabase", "public interface SupportSQLiteDatabase {}"));
+        stubs.add(stub("com.pentabin.livingroom.LivingRoomEntity", "public abstract class LivingRoomEntity {"
+                + " @androidx.room.PrimaryKey(autoGenerate = true) private long id; private boolean isDeleted;"
+                + " public long getId() { return id; } public boolean isDeleted() { return isDeleted; } }"));
+        stubs.add(stub("com.pentabin.livingroom.LivingRoomClock", "public abstract class LivingRoomClock {}"));
+        stubs.add(stub("com.pentabin.livingroom.DateConverter", "public class DateConverter {}"));
+        stubs.add(stub("com.pentabin.livingroom.Pragmas", "public final class Pragmas {}"));
+        stubs.add(stub("com.pentabin.livingroom.RetentionPurge", "public final class RetentionPurge {}"));
+        stubs.add(stub("com.pentabin.livingroom.ResultCallback", "public interface ResultCallback<T> {}"));
+        stubs.add(stub("com.pentabin.livingroom.LivingRoomExecutors", "public final class LivingRoomExecutors {}"));
+        stubs.add(stub("com.pentabin.livingroom.BasicRepository", "public interface BasicRepository<T> {}"));
+        stubs.add(stub("com.pentabin.livingroom.QueryCache", "public class QueryCache<T> {}"));
+        stubs.add(stub("androidx.recyclerview.widget.DiffUtil", "public class DiffUtil {"
+                + " public abstract static class ItemCallback<T> {} }"));
+        stubs.add(stub("androidx.recyclerview.widget.RecyclerView", "public class RecyclerView {"
+                + " public abstract static class ViewHolder {} }"));
+        stubs.add(stub("androidx.recyclerview.widget.AsyncDifferConfig", "public final class AsyncDifferConfig<T> {}"));
+        stubs.add(stub("androidx.recyclerview.widget.ListAdapter",
+                "public abstract class ListAdapter<T, VH extends RecyclerView.ViewHolder> {}"));
+        stubs.add(stub("io.reactivex.Flowable", "public abstract class Flowable<T> {}"));
+        stubs.add(stub("io.reactivex.Single", "public abstract class Single<T> {}"));
+        stubs.add(stub("io.reactivex.Completable", "public abstract class Completable {}"));
+        stubs.add(stub("io.reactivex.Scheduler", "public abstract class Scheduler {}"));
+        stubs.add(stub("io.reactivex.schedulers.Schedulers", "public final class Schedulers {}"));
+        stubs.add(stub("com.pentabin.livingroom.EntityConsumer", "public interface EntityConsumer<T> {}"));
+        stubs.add(stub("com.pentabin.livingroom.KeysetStream", "public final class KeysetStream {}"));
+        stubs.add(stub("com.pentabin.livingroom.FtsQuery", "public final class FtsQuery {}"));
+        stubs.add(stub("com.pentabin.livingroom.ThrottledQueryLiveData",
+                "public class ThrottledQueryLiveData<T> extends androidx.lifecycle.LiveData<T> {}"));
+        stubs.add(stub("com.pentabin.livingroom.EntityCache",
+                "public class EntityCache<T extends LivingRoomEntity> {}"));
+        stubs.add(stub("com.pentabin.livingroom.WriteBehindQueue",
+                "public class WriteBehindQueue<T extends LivingRoomEntity> {}"));
+        return stubs;
+    }
+
+    private static JavaFileObject stub(String qualifiedName, String declaration) {
+        int lastDot = qualifiedName.lastIndexOf('.');
+        return JavaFileObjects.forSourceLines(qualifiedName,
+                "package " + qualifiedName.substring(0, lastDot) + ";",
+                declaration);
+    }
+
+    /**
+     * @return a @Crudable entity named Entity + index, with a where query on its own columns
+     */
+    static JavaFileObject crudableEntity(int index) {
+        String name = "Entity" + index;
+        return JavaFileObjects.forSourceLines(PACKAGE + "." + name,
+                "package " + PACKAGE + ";",
+                "",
+                "import androidx.room.Entity;",
+                "import androidx.room.Index;",
+                "import com.pentabin.livingroom.BasicEntity;",
+                "import com.pentabin.livingroom.annotations.Crudable;",
+                "import com.pentabin.livingroom.annotations.SelectableWhere;",
+                "",
+                "@Crudable",
+                "@SelectableWhere(methodName = \"getByRank\", where = \"rank = :rank\", params = {\"java.lang.Integer rank\"})",
+                "@Entity(inheritSuperIndices = true, indices = {@Index(\"rank\")})",
+                "public class " + name + " extends BasicEntity {",
+                "    private String title;",
+                "    private String content;",
+                "    private int rank;",
+                "}");
+    }
+
+    static List<JavaFileObject> crudableEntities(int count) {
+        List<JavaFileObject> sources = new ArrayList<>(runtimeStubs());
+        sources.add(basicEntity());
+        for (int i = 0; i < count; i++) {
+            sources.add(crudableEntity(i));
+        }
+        return sources;
+    }
+
+    static Compiler compiler(Processor... processors) {
+        return Compiler.javac()
+                .withProcessors(processors)
+                .withOptions("-proc:only");
+    }
+
+    /**
+     * @return a class of the test package, declared by the lines after its package statement
+     */
+    static JavaFileObject source(String simpleName, String... lines) {
+        List<String> source = new ArrayList<>();
+        source.add("package " + PACKAGE + ";");
+        source.add("");
+        source.addAll(Arrays.asList(lines));
+        return JavaFileObjects.forSourceLines(PACKAGE + "." + simpleName, source);
+    }
+
+    /**
+     * Runs both processors on the sources, with the runtime stubs and the base entities.
+     */
+    static Compilation compile(JavaFileObject... sources) {
+        return compile(compiler(new LivingRoomProcessor(), new LivingRoomDatabaseProcessor()), sources);
+    }
+
+    static Compilation compile(Compiler compiler, JavaFileObject... sources) {
+        List<JavaFileObject> all = new ArrayList<>(runtimeStubs());
+        all.add(basicEntity());
+        all.add(basicMillisEntity());
+        all.addAll(Arrays.asList(sources));
+        return compiler.compile(all);
+    }
+}
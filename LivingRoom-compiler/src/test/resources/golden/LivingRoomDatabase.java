@@ -0,0 +1,34 @@
+package com.example.bench;
+
+import android.content.Context;
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import com.pentabin.livingroom.DateConverter;
+import com.pentabin.livingroom.LivingRoomExecutors;
+
+@Database(
+    entities = {Note.class},
+    version = 1,
+    exportSchema = false
+)
+@TypeConverters(DateConverter.class)
+public abstract class LivingRoomDatabase extends RoomDatabase {
+  private static volatile LivingRoomDatabase INSTANCE;
+
+  public abstract NoteDao notedao();
+
+  public static LivingRoomDatabase getDatabase(final Context context) {
+    if (INSTANCE == null) {
+      synchronized (LivingRoomDatabase.class) {
+        if (INSTANCE == null) {
+          INSTANCE = Room.databaseBuilder(context.getApplicationContext(), LivingRoomDatabase.class, "custom_database")
+              .setQueryExecutor(LivingRoomExecutors.getInstance().diskIO())
+              .build();
+        }
+      }
+    }
+    return INSTANCE;
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.bench;
+
+import android.app.Application;
+import com.pentabin.livingroom.BasicRepository;
+import com.pentabin.livingroom.LivingRoomEntity;
+import java.lang.Class;
+import java.lang.IllegalArgumentException;
+import java.lang.SuppressWarnings;
+
+public final class LivingRoomRepositories {
+  private static volatile NoteRepository noteRepository;
+
+  private LivingRoomRepositories() {
+  }
+
+  public static NoteRepository getNoteRepository(Application app) {
+    if (noteRepository == null) {
+      synchronized (LivingRoomRepositories.class) {
+        if (noteRepository == null) {
+          noteRepository = new NoteRepository(app);
+        }
+      }
+    }
+    return noteRepository;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T extends LivingRoomEntity> BasicRepository<T> get(Class<T> entity,
+      Application app) {
+    if (entity == Note.class) {
+      return (BasicRepository<T>) getNoteRepository(app);
+    }
+    throw new IllegalArgumentException(entity.getName() + " has no BasicRepository, it needs @Crudable");
+  }
+}
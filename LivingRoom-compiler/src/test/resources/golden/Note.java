@@ -0,0 +1,34 @@
+package com.example.bench;
+
+import androidx.room.Entity;
+
+import com.pentabin.livingroom.BasicEntity;
+import com.pentabin.livingroom.annotations.Cacheable;
+import com.pentabin.livingroom.annotations.Crudable;
+import com.pentabin.livingroom.annotations.Diffable;
+import com.pentabin.livingroom.annotations.SelectableAll;
+import com.pentabin.livingroom.annotations.SelectableWhere;
+import com.pentabin.livingroom.annotations.WriteBehind;
+
+@Crudable
+@Cacheable
+@SelectableAll(orderBy = "created_at DESC")
+@WriteBehind
+@Diffable
+@SelectableWhere(methodName = "getDateRange",
+        where = "created_at > :from AND created_at < :to",
+        params = {"java.util.Date from", "java.util.Date to"},
+        streamed = true)
+@Entity(inheritSuperIndices = true)
+public class Note extends BasicEntity {
+    private String title;
+    private String content;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bench;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+import java.util.Date;
+import java.util.List;
+
+@Dao
+public interface NoteDao {
+  @Query("SELECT * FROM Note WHERE created_at > :from AND created_at < :to")
+  LiveData<List<Note>> getDateRange(Date from, Date to);
+
+  @Query("SELECT * FROM Note WHERE (created_at > :from AND created_at < :to) AND id > :lastId ORDER BY id LIMIT :limit")
+  List<Note> getDateRangePageAfter(Date from, Date to, long lastId, int limit);
+
+  @Query("SELECT * FROM Note WHERE isDeleted = 0 ORDER BY created_at DESC")
+  LiveData<List<Note>> getAll();
+
+  @Delete
+  void deleteAll(List<Note> items);
+
+  @Insert
+  long insert(Note item);
+
+  @Update
+  void update(Note item);
+
+  @Update
+  void updateAll(List<Note> items);
+
+  @Update
+  void archive(Note item);
+
+  @Delete
+  void delete(Note item);
+
+  @Query("SELECT * FROM Note WHERE id = :id")
+  LiveData<Note> getById(long id);
+
+  @Update
+  void archiveAll(List<Note> items);
+
+  @Insert
+  long[] insertAll(List<Note> items);
+
+  @Query("SELECT * FROM Note WHERE id = :id")
+  Note loadById(long id);
+}
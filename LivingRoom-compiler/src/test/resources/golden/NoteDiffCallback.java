@@ -0,0 +1,21 @@
+package com.example.bench;
+
+import androidx.recyclerview.widget.DiffUtil;
+import java.lang.Override;
+import java.util.Objects;
+
+public class NoteDiffCallback extends DiffUtil.ItemCallback<Note> {
+  @Override
+  public boolean areItemsTheSame(Note oldItem, Note newItem) {
+    return oldItem.getId() == newItem.getId();
+  }
+
+  @Override
+  public boolean areContentsTheSame(Note oldItem, Note newItem) {
+    return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+        && Objects.equals(oldItem.getContent(), newItem.getContent())
+        && Objects.equals(oldItem.getCreated_at(), newItem.getCreated_at())
+        && Objects.equals(oldItem.getUpdated_at(), newItem.getUpdated_at())
+        && oldItem.isDeleted() == newItem.isDeleted();
+  }
+}
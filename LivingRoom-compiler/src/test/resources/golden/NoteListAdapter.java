@@ -0,0 +1,14 @@
+package com.example.bench;
+
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+import com.pentabin.livingroom.LivingRoomExecutors;
+
+public abstract class NoteListAdapter<VH extends RecyclerView.ViewHolder> extends ListAdapter<Note, VH> {
+  protected NoteListAdapter() {
+    super(new AsyncDifferConfig.Builder<>(new NoteDiffCallback())
+        .setBackgroundThreadExecutor(LivingRoomExecutors.getInstance().diskIO())
+        .build());
+  }
+}
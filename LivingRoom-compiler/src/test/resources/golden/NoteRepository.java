@@ -0,0 +1,169 @@
+package com.example.bench;
+
+import android.app.Application;
+import androidx.lifecycle.LiveData;
+import com.pentabin.livingroom.BasicRepository;
+import com.pentabin.livingroom.EntityCache;
+import com.pentabin.livingroom.EntityConsumer;
+import com.pentabin.livingroom.KeysetStream;
+import com.pentabin.livingroom.LivingRoomClock;
+import com.pentabin.livingroom.LivingRoomExecutors;
+import com.pentabin.livingroom.QueryCache;
+import com.pentabin.livingroom.ResultCallback;
+import com.pentabin.livingroom.WriteBehindQueue;
+import java.lang.Long;
+import java.lang.Override;
+import java.lang.Throwable;
+import java.util.Date;
+import java.util.List;
+
+public class NoteRepository implements BasicRepository<Note> {
+  private LivingRoomDatabase livingroomdatabase;
+
+  private NoteDao notedao;
+
+  private LivingRoomExecutors executors;
+
+  private EntityCache<Note> entityCache;
+
+  private WriteBehindQueue<Note> writeBehind;
+
+  private final QueryCache<List<Note>> getDateRangeCache = new QueryCache<>();
+
+  private LiveData<List<Note>> getAllList;
+
+  public NoteRepository(Application app) {
+    livingroomdatabase = LivingRoomDatabase.getDatabase(app);
+    notedao = livingroomdatabase.notedao();
+    executors = LivingRoomExecutors.getInstance();
+    writeBehind = new WriteBehindQueue<>(500L, 100, items -> {
+      notedao.updateAll(items);
+      entityCache.refreshAll(items);
+    });
+    entityCache = new EntityCache<>(64, notedao::loadById);
+  }
+
+  /**
+   * The cache of getById(id), with its hit and miss counts
+   */
+  public EntityCache<Note> getEntityCache() {
+    return entityCache;
+  }
+
+  @Override
+  public NoteRepository getInstance(Application app) {
+    return LivingRoomRepositories.getNoteRepository(app);
+  }
+
+  public void flush() {
+    writeBehind.flush();
+  }
+
+  public LiveData<List<Note>> getDateRange(Date from, Date to) {
+    return getDateRangeCache.get(() -> notedao.getDateRange(from,to), from,to);
+  }
+
+  public List<Note> getDateRangePageAfter(Date from, Date to, long lastId, int limit) {
+    return notedao.getDateRangePageAfter(from, to, lastId, limit);
+  }
+
+  public void getDateRangePageAfterAsync(Date from, Date to, long lastId, int limit,
+      ResultCallback<List<Note>> callback) {
+    executors.read(() -> notedao.getDateRangePageAfter(from, to, lastId, limit), callback);
+  }
+
+  public LiveData<List<Note>> getAll() {
+    if (getAllList == null) {
+      getAllList = notedao.getAll();
+    }
+    return getAllList;
+  }
+
+  public void deleteAll(List<Note> items) {
+    writeBehind.discardAll(items);
+    executors.writer().execute(() -> {
+      notedao.deleteAll(items);
+      entityCache.removeAll(items);
+    });
+  }
+
+  public long insert(Note item) {
+    item.setCreated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    try {
+      return executors.write(() -> entityCache.inserted(item, notedao.insert(item))).get();
+    } catch (Throwable e) {
+      e.printStackTrace();
+    }
+    return -1;
+  }
+
+  public void insertAsync(Note item, ResultCallback<Long> callback) {
+    item.setCreated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    executors.write(() -> entityCache.inserted(item, notedao.insert(item)), callback);
+  }
+
+  public void update(Note item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    writeBehind.enqueue(item);
+  }
+
+  public void updateAll(List<Note> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Note item : items) {
+      item.setUpdated_at(now);
+    }
+    writeBehind.enqueueAll(items);
+  }
+
+  public void archive(Note item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    item.setDeleted(true);
+    writeBehind.enqueue(item);
+  }
+
+  public int forEachDateRange(Date from, Date to, EntityConsumer<? super Note> consumer) {
+    return KeysetStream.forEach((lastId, limit) -> notedao.getDateRangePageAfter(from, to, lastId, limit), Note::getId, consumer);
+  }
+
+  public void delete(Note item) {
+    writeBehind.discard(item);
+    executors.writer().execute(() -> {
+      notedao.delete(item);
+      entityCache.remove(item);
+    });
+  }
+
+  public LiveData<Note> getById(long id) {
+    return entityCache.get(id);
+  }
+
+  public void archiveAll(List<Note> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Note item : items) {
+      item.setUpdated_at(now);
+      item.setDeleted(true);
+    }
+    writeBehind.enqueueAll(items);
+  }
+
+  public long[] insertAll(List<Note> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Note item : items) {
+      item.setCreated_at(now);
+    }
+    try {
+      return executors.write(() -> entityCache.insertedAll(items, notedao.insertAll(items))).get();
+    } catch (Throwable e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  public void insertAllAsync(List<Note> items, ResultCallback<long[]> callback) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Note item : items) {
+      item.setCreated_at(now);
+    }
+    executors.write(() -> entityCache.insertedAll(items, notedao.insertAll(items)), callback);
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.bench;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import com.pentabin.livingroom.ResultCallback;
+import java.lang.Long;
+import java.lang.Override;
+import java.util.Date;
+import java.util.List;
+
+public class NoteViewModel extends AndroidViewModel {
+  private NoteRepository noterepository;
+
+  private LiveData<List<Note>> getAllList;
+
+  public NoteViewModel(Application app) {
+    super(app);
+    noterepository = LivingRoomRepositories.getNoteRepository(app);
+  }
+
+  public void flush() {
+    noterepository.flush();
+  }
+
+  @Override
+  protected void onCleared() {
+    noterepository.flush();
+    super.onCleared();
+  }
+
+  public LiveData<List<Note>> getDateRange(Date from, Date to) {
+    return noterepository.getDateRange(from,to);
+  }
+
+  public List<Note> getDateRangePageAfter(Date from, Date to, long lastId, int limit) {
+    return noterepository.getDateRangePageAfter(from, to, lastId, limit);
+  }
+
+  public void getDateRangePageAfterAsync(Date from, Date to, long lastId, int limit,
+      ResultCallback<List<Note>> callback) {
+    noterepository.getDateRangePageAfterAsync(from, to, lastId, limit, callback);
+  }
+
+  public LiveData<List<Note>> getAll() {
+    if (getAllList == null) {
+      getAllList = noterepository.getAll();
+    }
+    return getAllList;
+  }
+
+  public void deleteAll(List<Note> items) {
+     noterepository.deleteAll(items);
+  }
+
+  public long insert(Note item) {
+    return noterepository.insert(item);
+  }
+
+  public void insertAsync(Note item, ResultCallback<Long> callback) {
+    noterepository.insertAsync(item, callback);
+  }
+
+  public void update(Note item) {
+     noterepository.update(item);
+  }
+
+  public void updateAll(List<Note> items) {
+     noterepository.updateAll(items);
+  }
+
+  public void archive(Note item) {
+     noterepository.archive(item);
+  }
+
+  public void delete(Note item) {
+     noterepository.delete(item);
+  }
+
+  public LiveData<Note> getById(long id) {
+    return noterepository.getById(id);
+  }
+
+  public void archiveAll(List<Note> items) {
+     noterepository.archiveAll(items);
+  }
+
+  public long[] insertAll(List<Note> items) {
+    return noterepository.insertAll(items);
+  }
+
+  public void insertAllAsync(List<Note> items, ResultCallback<long[]> callback) {
+    noterepository.insertAllAsync(items, callback);
+  }
+}
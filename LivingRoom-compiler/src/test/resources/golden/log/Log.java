@@ -0,0 +1,20 @@
+package com.example.bench;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+
+import com.pentabin.livingroom.BasicEntity;
+import com.pentabin.livingroom.annotations.Crudable;
+import com.pentabin.livingroom.annotations.Reactive;
+import com.pentabin.livingroom.annotations.SelectableWhere;
+import com.pentabin.livingroom.annotations.UpdatableField;
+
+@Crudable
+@Reactive
+@SelectableWhere(methodName = "getByLevel", where = "level >= :level", params = {"int level"})
+@Entity(inheritSuperIndices = true, indices = {@Index("level")})
+public class Log extends BasicEntity {
+    @UpdatableField
+    private int level;
+    private String message;
+}
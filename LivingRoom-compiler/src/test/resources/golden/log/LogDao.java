@@ -0,0 +1,49 @@
+package com.example.bench;
+
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+import io.reactivex.Flowable;
+import java.util.Date;
+import java.util.List;
+
+@Dao
+public interface LogDao {
+  @Query("SELECT * FROM Log WHERE isDeleted = 0")
+  Flowable<List<Log>> getAll();
+
+  @Query("UPDATE Log SET level = :level, updated_at = :updated_at WHERE id = :id")
+  void updateLevel(long id, int level, Date updated_at);
+
+  @Query("SELECT * FROM Log WHERE id = :id")
+  Flowable<Log> getById(long id);
+
+  @Delete
+  void deleteAll(List<Log> items);
+
+  @Insert
+  long insert(Log item);
+
+  @Update
+  void update(Log item);
+
+  @Update
+  void updateAll(List<Log> items);
+
+  @Update
+  void archive(Log item);
+
+  @Update
+  void archiveAll(List<Log> items);
+
+  @Delete
+  void delete(Log item);
+
+  @Insert
+  long[] insertAll(List<Log> items);
+
+  @Query("SELECT * FROM Log WHERE level >= :level")
+  Flowable<List<Log>> getByLevel(int level);
+}
@@ -0,0 +1,101 @@
+package com.example.bench;
+
+import android.app.Application;
+import com.pentabin.livingroom.LivingRoomClock;
+import com.pentabin.livingroom.LivingRoomExecutors;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.lang.Long;
+import java.util.Date;
+import java.util.List;
+
+public class LogRepository {
+  private LivingRoomDatabase livingroomdatabase;
+
+  private LogDao logdao;
+
+  private LivingRoomExecutors executors;
+
+  private Scheduler writeScheduler;
+
+  private Flowable<List<Log>> getAllList;
+
+  public LogRepository(Application app) {
+    livingroomdatabase = LivingRoomDatabase.getDatabase(app);
+    logdao = livingroomdatabase.logdao();
+    executors = LivingRoomExecutors.getInstance();
+    writeScheduler = Schedulers.from(executors.writer());
+  }
+
+  public Flowable<List<Log>> getAll() {
+    if (getAllList == null) {
+      getAllList = logdao.getAll();
+    }
+    return getAllList;
+  }
+
+  public Completable updateLevel(long id, int level) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    return Completable.fromAction(() -> logdao.updateLevel(id, level, now)).subscribeOn(writeScheduler);
+  }
+
+  public Flowable<Log> getById(long id) {
+    return logdao.getById(id);
+  }
+
+  public Completable deleteAll(List<Log> items) {
+    return Completable.fromAction(() -> logdao.deleteAll(items)).subscribeOn(writeScheduler);
+  }
+
+  public Single<Long> insert(Log item) {
+    item.setCreated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    return Single.fromCallable(() -> logdao.insert(item)).subscribeOn(writeScheduler);
+  }
+
+  public Completable update(Log item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    return Completable.fromAction(() -> logdao.update(item)).subscribeOn(writeScheduler);
+  }
+
+  public Completable updateAll(List<Log> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Log item : items) {
+      item.setUpdated_at(now);
+    }
+    return Completable.fromAction(() -> logdao.updateAll(items)).subscribeOn(writeScheduler);
+  }
+
+  public Completable archive(Log item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    item.setDeleted(true);
+    return Completable.fromAction(() -> logdao.archive(item)).subscribeOn(writeScheduler);
+  }
+
+  public Completable archiveAll(List<Log> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Log item : items) {
+      item.setUpdated_at(now);
+      item.setDeleted(true);
+    }
+    return Completable.fromAction(() -> logdao.archiveAll(items)).subscribeOn(writeScheduler);
+  }
+
+  public Completable delete(Log item) {
+    return Completable.fromAction(() -> logdao.delete(item)).subscribeOn(writeScheduler);
+  }
+
+  public Single<long[]> insertAll(List<Log> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Log item : items) {
+      item.setCreated_at(now);
+    }
+    return Single.fromCallable(() -> logdao.insertAll(items)).subscribeOn(writeScheduler);
+  }
+
+  public Flowable<List<Log>> getByLevel(int level) {
+    return logdao.getByLevel(level);
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.bench;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.lang.Long;
+import java.util.List;
+
+public class LogViewModel extends AndroidViewModel {
+  private LogRepository logrepository;
+
+  private Flowable<List<Log>> getAllList;
+
+  public LogViewModel(Application app) {
+    super(app);
+    logrepository = LivingRoomRepositories.getLogRepository(app);
+  }
+
+  public Flowable<List<Log>> getAll() {
+    if (getAllList == null) {
+      getAllList = logrepository.getAll();
+    }
+    return getAllList;
+  }
+
+  public Completable updateLevel(long id, int level) {
+    return logrepository.updateLevel(id, level);
+  }
+
+  public Flowable<Log> getById(long id) {
+    return logrepository.getById(id);
+  }
+
+  public Completable deleteAll(List<Log> items) {
+    return logrepository.deleteAll(items);
+  }
+
+  public Single<Long> insert(Log item) {
+    return logrepository.insert(item);
+  }
+
+  public Completable update(Log item) {
+    return logrepository.update(item);
+  }
+
+  public Completable updateAll(List<Log> items) {
+    return logrepository.updateAll(items);
+  }
+
+  public Completable archive(Log item) {
+    return logrepository.archive(item);
+  }
+
+  public Completable archiveAll(List<Log> items) {
+    return logrepository.archiveAll(items);
+  }
+
+  public Completable delete(Log item) {
+    return logrepository.delete(item);
+  }
+
+  public Single<long[]> insertAll(List<Log> items) {
+    return logrepository.insertAll(items);
+  }
+
+  public Flowable<List<Log>> getByLevel(int level) {
+    return logrepository.getByLevel(level);
+  }
+}
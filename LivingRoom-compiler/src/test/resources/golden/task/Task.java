@@ -0,0 +1,31 @@
+package com.example.bench;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+import com.pentabin.livingroom.BasicEntity;
+import com.pentabin.livingroom.annotations.Crudable;
+import com.pentabin.livingroom.annotations.UpdatableField;
+
+@Crudable
+@Entity(inheritSuperIndices = true)
+public class Task extends BasicEntity {
+    @UpdatableField
+    @ColumnInfo(name = "task_title")
+    private String title;
+    @UpdatableField
+    private boolean done;
+    private int priority;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bench;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+import java.lang.String;
+import java.util.Date;
+import java.util.List;
+
+@Dao
+public interface TaskDao {
+  @Query("SELECT * FROM Task WHERE isDeleted = 0")
+  LiveData<List<Task>> getAll();
+
+  @Query("SELECT * FROM Task WHERE id = :id")
+  LiveData<Task> getById(long id);
+
+  @Delete
+  void deleteAll(List<Task> items);
+
+  @Insert
+  long insert(Task item);
+
+  @Update
+  void update(Task item);
+
+  @Update
+  void updateAll(List<Task> items);
+
+  @Update
+  void archive(Task item);
+
+  @Update
+  void archiveAll(List<Task> items);
+
+  @Delete
+  void delete(Task item);
+
+  @Insert
+  long[] insertAll(List<Task> items);
+
+  @Query("UPDATE Task SET task_title = :title, updated_at = :updated_at WHERE id = :id")
+  void updateTitle(long id, String title, Date updated_at);
+
+  @Query("UPDATE Task SET done = :done, updated_at = :updated_at WHERE id = :id")
+  void updateDone(long id, boolean done, Date updated_at);
+}
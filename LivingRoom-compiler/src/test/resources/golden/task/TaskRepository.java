@@ -0,0 +1,131 @@
+package com.example.bench;
+
+import android.app.Application;
+import androidx.lifecycle.LiveData;
+import com.pentabin.livingroom.BasicRepository;
+import com.pentabin.livingroom.LivingRoomClock;
+import com.pentabin.livingroom.LivingRoomExecutors;
+import com.pentabin.livingroom.QueryCache;
+import com.pentabin.livingroom.ResultCallback;
+import java.lang.Long;
+import java.lang.Override;
+import java.lang.String;
+import java.lang.Throwable;
+import java.util.Date;
+import java.util.List;
+
+public class TaskRepository implements BasicRepository<Task> {
+  private LivingRoomDatabase livingroomdatabase;
+
+  private TaskDao taskdao;
+
+  private LivingRoomExecutors executors;
+
+  private LiveData<List<Task>> getAllList;
+
+  private final QueryCache<Task> getByIdCache = new QueryCache<>();
+
+  public TaskRepository(Application app) {
+    livingroomdatabase = LivingRoomDatabase.getDatabase(app);
+    taskdao = livingroomdatabase.taskdao();
+    executors = LivingRoomExecutors.getInstance();
+  }
+
+  @Override
+  public TaskRepository getInstance(Application app) {
+    return LivingRoomRepositories.getTaskRepository(app);
+  }
+
+  public LiveData<List<Task>> getAll() {
+    if (getAllList == null) {
+      getAllList = taskdao.getAll();
+    }
+    return getAllList;
+  }
+
+  public LiveData<Task> getById(long id) {
+    return getByIdCache.get(() -> taskdao.getById(id), id);
+  }
+
+  public void deleteAll(List<Task> items) {
+    executors.writer().execute(() -> taskdao.deleteAll(items));
+  }
+
+  public long insert(Task item) {
+    item.setCreated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    try {
+      return executors.write(() -> taskdao.insert(item)).get();
+    } catch (Throwable e) {
+      e.printStackTrace();
+    }
+    return -1;
+  }
+
+  public void insertAsync(Task item, ResultCallback<Long> callback) {
+    item.setCreated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    executors.write(() -> taskdao.insert(item), callback);
+  }
+
+  public void update(Task item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    executors.writer().execute(() -> taskdao.update(item));
+  }
+
+  public void updateAll(List<Task> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Task item : items) {
+      item.setUpdated_at(now);
+    }
+    executors.writer().execute(() -> taskdao.updateAll(items));
+  }
+
+  public void archive(Task item) {
+    item.setUpdated_at(new Date(LivingRoomClock.getInstance().currentTimeMillis()));
+    item.setDeleted(true);
+    executors.writer().execute(() -> taskdao.archive(item));
+  }
+
+  public void archiveAll(List<Task> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Task item : items) {
+      item.setUpdated_at(now);
+      item.setDeleted(true);
+    }
+    executors.writer().execute(() -> taskdao.archiveAll(items));
+  }
+
+  public void delete(Task item) {
+    executors.writer().execute(() -> taskdao.delete(item));
+  }
+
+  public long[] insertAll(List<Task> items) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Task item : items) {
+      item.setCreated_at(now);
+    }
+    try {
+      return executors.write(() -> taskdao.insertAll(items)).get();
+    } catch (Throwable e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  public void insertAllAsync(List<Task> items, ResultCallback<long[]> callback) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    for (Task item : items) {
+      item.setCreated_at(now);
+    }
+    executors.write(() -> taskdao.insertAll(items), callback);
+  }
+
+  public void updateTitle(long id, String title) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    executors.writer().execute(() -> taskdao.updateTitle(id, title, now));
+  }
+
+  public void updateDone(long id, boolean done) {
+    Date now = new Date(LivingRoomClock.getInstance().currentTimeMillis());
+    executors.writer().execute(() -> taskdao.updateDone(id, done, now));
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.bench;
+
+import android.app.Application;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import com.pentabin.livingroom.ResultCallback;
+import java.lang.Long;
+import java.lang.String;
+import java.util.List;
+
+public class TaskViewModel extends AndroidViewModel {
+  private TaskRepository taskrepository;
+
+  private LiveData<List<Task>> getAllList;
+
+  public TaskViewModel(Application app) {
+    super(app);
+    taskrepository = LivingRoomRepositories.getTaskRepository(app);
+  }
+
+  public LiveData<List<Task>> getAll() {
+    if (getAllList == null) {
+      getAllList = taskrepository.getAll();
+    }
+    return getAllList;
+  }
+
+  public LiveData<Task> getById(long id) {
+    return taskrepository.getById(id);
+  }
+
+  public void deleteAll(List<Task> items) {
+     taskrepository.deleteAll(items);
+  }
+
+  public long insert(Task item) {
+    return taskrepository.insert(item);
+  }
+
+  public void insertAsync(Task item, ResultCallback<Long> callback) {
+    taskrepository.insertAsync(item, callback);
+  }
+
+  public void update(Task item) {
+     taskrepository.update(item);
+  }
+
+  public void updateAll(List<Task> items) {
+     taskrepository.updateAll(items);
+  }
+
+  public void archive(Task item) {
+     taskrepository.archive(item);
+  }
+
+  public void archiveAll(List<Task> items) {
+     taskrepository.archiveAll(items);
+  }
+
+  public void delete(Task item) {
+     taskrepository.delete(item);
+  }
+
+  public long[] insertAll(List<Task> items) {
+    return taskrepository.insertAll(items);
+  }
+
+  public void insertAllAsync(List<Task> items, ResultCallback<long[]> callback) {
+    taskrepository.insertAllAsync(items, callback);
+  }
+
+  public void updateTitle(long id, String title) {
+    taskrepository.updateTitle(id, title);
+  }
+
+  public void updateDone(long id, boolean done) {
+    taskrepository.updateDone(id, done);
+  }
+}
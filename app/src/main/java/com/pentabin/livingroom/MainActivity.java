@@ -1,6 +1,7 @@
 package com.pentabin.livingroom;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.EditText;
 
@@ -9,9 +10,8 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.Collections;
-
 public class MainActivity extends AppCompatActivity {
+    private static final String TAG = "MainActivity";
     private NoteViewModel viewModel;
     private EditText title;
     private EditText content;
@@ -24,11 +24,7 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
         initViews();
         viewModel = new ViewModelProvider(this).get(NoteViewModel.class);
-        viewModel.getAll().observe(this, notes -> {
-            Collections.reverse(notes);
-            notesAdapter.setNoteList(notes);
-            notesAdapter.notifyDataSetChanged();
-        });
+        viewModel.getAll().observe(this, notes -> notesAdapter.submitList(notes));
     }
 
     private void initViews(){
@@ -45,7 +41,16 @@ public class MainActivity extends AppCompatActivity {
         String c = content.getText().toString();
         if (!t.isEmpty()) {
             Note note = new Note(t, c);
-            viewModel.insert(note);
+            viewModel.insertAsync(note, new ResultCallback<Long>() {
+                @Override
+                public void onSuccess(Long id) {
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    Log.e(TAG, "Could not save the note", error);
+                }
+            });
             title.setText("");
             content.setText("");
         }
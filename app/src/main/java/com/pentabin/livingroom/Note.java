@@ -3,14 +3,20 @@ package com.pentabin.livingroom;
 import androidx.room.Entity;
 
 import com.pentabin.livingroom.annotations.Crudable;
+import com.pentabin.livingroom.annotations.Diffable;
+import com.pentabin.livingroom.annotations.SelectableAll;
 import com.pentabin.livingroom.annotations.SelectableWhere;
+import com.pentabin.livingroom.annotations.WriteBehind;
 
 @Crudable
+@SelectableAll(orderBy = "created_at DESC")
+@WriteBehind
+@Diffable
 @SelectableWhere(methodName = "getArchived", where = "isDeleted = 1")
 @SelectableWhere(methodName = "getDateRange",
         where = "created_at > :from AND created_at < :to",
         params = {"java.util.Date from", "java.util.Date to"})
-@Entity
+@Entity(inheritSuperIndices = true)
 public class Note extends BasicEntity {
     private String title;
     private String content;
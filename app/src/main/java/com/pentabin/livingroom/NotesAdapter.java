@@ -8,10 +8,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.List;
-
-public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NotesViewHolder> {
-    private List<Note> noteList;
+public class NotesAdapter extends NoteListAdapter<NotesAdapter.NotesViewHolder> {
 
     @NonNull
     @Override
@@ -23,16 +20,11 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NotesViewHol
 
     @Override
     public void onBindViewHolder(@NonNull NotesViewHolder holder, int position) {
-        Note note = noteList.get(position);
+        Note note = getItem(position);
         holder.title.setText(note.getTitle());
         holder.content.setText(note.getContent());
     }
 
-    @Override
-    public int getItemCount() {
-        return noteList == null ? 0 : noteList.size();
-    }
-
     static class NotesViewHolder extends RecyclerView.ViewHolder {
         TextView title;
         TextView content;
@@ -42,8 +34,4 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NotesViewHol
             content = v.findViewById(R.id.content);
         }
     }
-
-    public void setNoteList(List<Note> noteList) {
-        this.noteList = noteList;
-    }
 }
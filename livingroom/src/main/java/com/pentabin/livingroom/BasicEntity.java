@@ -1,23 +1,21 @@
 package com.pentabin.livingroom;
 
-import androidx.room.PrimaryKey;
+import androidx.room.Entity;
+import androidx.room.Index;
 
 import java.util.Date;
 
-public abstract class BasicEntity {
-    @PrimaryKey(autoGenerate = true)
-    private long id;
+/**
+ * Base class of the LivingRoom entities.
+ * <p>
+ * The indices cover the queries generated by LivingRoom: getAll() filters on isDeleted
+ * and the date queries on created_at. Room only keeps them when the entity sets
+ * {@code @Entity(inheritSuperIndices = true)}.
+ */
+@Entity(indices = {@Index({"isDeleted", "created_at"}), @Index("created_at")})
+public abstract class BasicEntity extends LivingRoomEntity {
     private Date created_at;
     private Date updated_at;
-    private boolean isDeleted;
-
-    public long getId() {
-        return id;
-    }
-
-    public void setId(long id) {
-        this.id = id;
-    }
 
     public Date getCreated_at() {
         return created_at;
@@ -35,12 +33,4 @@ public abstract class BasicEntity {
         this.updated_at = updated_at;
     }
 
-    public boolean isDeleted() {
-        return isDeleted;
-    }
-
-    public void setDeleted(boolean deleted) {
-        isDeleted = deleted;
-    }
-
 }
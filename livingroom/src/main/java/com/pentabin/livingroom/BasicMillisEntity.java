@@ -0,0 +1,33 @@
+package com.pentabin.livingroom;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Base class of the LivingRoom entities keeping their timestamps as primitive epoch milliseconds.
+ * <p>
+ * Unlike {@link BasicEntity}, reading or writing a row allocates no Date and goes through no type converter.
+ * The columns have the same names as the ones of {@link BasicEntity}, but are NOT NULL: 0 stands for a timestamp
+ * never set. The queries on the timestamps take long parameters.
+ */
+@Entity(indices = {@Index({"isDeleted", "created_at"}), @Index("created_at")})
+public abstract class BasicMillisEntity extends LivingRoomEntity {
+    private long created_at;
+    private long updated_at;
+
+    public long getCreated_at() {
+        return created_at;
+    }
+
+    public void setCreated_at(long created_at) {
+        this.created_at = created_at;
+    }
+
+    public long getUpdated_at() {
+        return updated_at;
+    }
+
+    public void setUpdated_at(long updated_at) {
+        this.updated_at = updated_at;
+    }
+}
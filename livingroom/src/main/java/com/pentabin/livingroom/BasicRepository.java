@@ -6,12 +6,21 @@ import androidx.lifecycle.LiveData;
 
 import java.util.List;
 
+/**
+ * Implemented by the generated repositories of the @Crudable entities.
+ * The shared instance of an entity is given by LivingRoomRepositories.get(Entity.class, app),
+ * generated next to the database.
+ */
 public interface BasicRepository<T> {
     LiveData<List<T>> getAll();
-    Long insert(T t);
+    long insert(T t);
     void delete(T t);
     //void archive(T t);
     void update(T t);
+
+    /**
+     * @return the repository shared by the whole process
+     */
     BasicRepository<T> getInstance(Application app);
     //LiveData<T> getById(long id);
 }
@@ -0,0 +1,184 @@
+package com.pentabin.livingroom;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.List;
+
+/**
+ * Read-through cache of the items of an entity by id, used by the repositories of the entities marked with @Cacheable.
+ * <p>
+ * getById(id) returns the cached LiveData of the id (a hit), or creates it and loads the item on the
+ * disk I/O executor (a miss). The generated insert, update, archive and delete methods update the cached items on the
+ * writer once the Dao call has returned, so a failed write leaves them unchanged, and the field updates reload them.
+ * The cache does not observe the table: the items written by other means are not refreshed.
+ * The entries with an active observer are evicted last. A load that fails drops its entry, the next get(id) retries.
+ *
+ * @param <T> the entity type
+ */
+public class EntityCache<T extends LivingRoomEntity> {
+
+    /**
+     * Reads an item from the database, on a background thread.
+     */
+    public interface Loader<T> {
+        T load(long id);
+    }
+
+    private static class Entry<T> extends MutableLiveData<T> {
+        // incremented by each write, a load started before a write must not override it
+        int version;
+        // set on the main thread, read by the eviction on the thread calling get()
+        volatile boolean active;
+
+        @Override
+        protected void onActive() {
+            active = true;
+        }
+
+        @Override
+        protected void onInactive() {
+            active = false;
+        }
+    }
+
+    private final LongLruCache<Entry<T>> entries;
+    private final Loader<T> loader;
+    private long hitCount;
+    private long missCount;
+
+    public EntityCache(int maxSize, Loader<T> loader) {
+        this.loader = loader;
+        this.entries = new LongLruCache<Entry<T>>(maxSize) {
+            @Override
+            protected boolean isEvictable(Entry<T> entry) {
+                return !entry.active;
+            }
+        };
+    }
+
+    public LiveData<T> get(long id) {
+        final Entry<T> entry;
+        final int version;
+        synchronized (this) {
+            Entry<T> cached = entries.get(id);
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+            missCount++;
+            entry = new Entry<>();
+            version = entry.version;
+            entries.put(id, entry);
+        }
+        load(id, entry, version);
+        return entry;
+    }
+
+    /**
+     * Sets the new value of an item, if it is cached.
+     */
+    public synchronized void refresh(T item) {
+        Entry<T> entry = entries.peek(item.getId());
+        if (entry != null) {
+            entry.version++;
+            entry.postValue(item);
+        }
+    }
+
+    /**
+     * Reloads an item, if it is cached, after a write that changed some of its columns.
+     * Call it once the write is done.
+     */
+    public void reload(long id) {
+        final Entry<T> entry;
+        final int version;
+        synchronized (this) {
+            entry = entries.peek(id);
+            if (entry == null) return;
+            version = ++entry.version;
+        }
+        load(id, entry, version);
+    }
+
+    private void load(long id, Entry<T> entry, int version) {
+        LivingRoomExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                T item = loader.load(id);
+                synchronized (this) {
+                    if (entry.version == version) entry.postValue(item);
+                }
+            } catch (RuntimeException e) {
+                // without a value the entry would be a hit until evicted, unless a write has set it since
+                synchronized (this) {
+                    if (entry.version == version && entries.peek(id) == entry) entries.remove(id);
+                }
+                e.printStackTrace();
+            }
+        });
+    }
+
+    public synchronized void refreshAll(List<T> items) {
+        for (T item : items) {
+            refresh(item);
+        }
+    }
+
+    /**
+     * The observers of a deleted item receive null.
+     */
+    public synchronized void remove(T item) {
+        Entry<T> entry = entries.remove(item.getId());
+        if (entry != null) {
+            entry.version++;
+            entry.postValue(null);
+        }
+    }
+
+    public synchronized void removeAll(List<T> items) {
+        for (T item : items) {
+            remove(item);
+        }
+    }
+
+    /**
+     * Sets the id given by the database to an inserted item, and refreshes it if it is already cached.
+     * A failed upsert (-1) leaves the item and the cache unchanged.
+     * @return the id
+     */
+    public long inserted(T item, long id) {
+        if (id == -1) return id;
+        item.setId(id);
+        refresh(item);
+        return id;
+    }
+
+    public long[] insertedAll(List<T> items, long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            inserted(items.get(i), ids[i]);
+        }
+        return ids;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int maxSize() {
+        return entries.maxSize();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EntityCache{size=" + entries.size() + "/" + entries.maxSize()
+                + ", hits=" + hitCount + ", misses=" + missCount + "}";
+    }
+}
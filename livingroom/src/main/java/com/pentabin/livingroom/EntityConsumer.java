@@ -0,0 +1,12 @@
+package com.pentabin.livingroom;
+
+/**
+ * Receives the items of a generated forEach method one at a time, on the thread calling it.
+ * <p>
+ * java.util.function.Consumer needs Android 7.0 (API 24), so LivingRoom declares its own.
+ *
+ * @param <T> the entity type, or the projection of the select
+ */
+public interface EntityConsumer<T> {
+    void accept(T item);
+}
@@ -0,0 +1,29 @@
+package com.pentabin.livingroom;
+
+/**
+ * Turns the text typed by a user into a full-text query, used by the generated search(query) methods.
+ * <p>
+ * MATCH rejects a malformed query, such as an unbalanced double quote, with an SQLiteException thrown on the
+ * thread running the query. Each word of the text becomes a quoted phrase, so the operators of the FTS syntax
+ * are matched as words, and the words must all be found. A word ending with {@code *} stays a prefix query.
+ */
+public final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    /**
+     * Example: {@code room "andr*} gives {@code "room" "andr*"}
+     */
+    public static String escape(String text) {
+        StringBuilder query = new StringBuilder(text.length() + 8);
+        for (String word : text.split("\\s+")) {
+            // FTS4 has no escape for a double quote inside a phrase
+            String term = word.replace("\"", "");
+            if (term.isEmpty() || term.equals("*")) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(term).append('"');
+        }
+        return query.toString();
+    }
+}
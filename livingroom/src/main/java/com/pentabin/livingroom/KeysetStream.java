@@ -0,0 +1,50 @@
+package com.pentabin.livingroom;
+
+import java.util.List;
+
+/**
+ * Walks the result of a select in chunks of {@link #CHUNK_SIZE} items read by keyset pagination,
+ * used by the generated forEach methods.
+ * <p>
+ * Only one chunk is held in memory, whatever the size of the table, and each chunk seeks the primary key instead of
+ * skipping the previous rows. Each chunk is a separate query: the rows written while the walk runs are seen
+ * if their id is greater than the last id read. The walk blocks the caller, run it on a background thread.
+ */
+public final class KeysetStream {
+    public static final int CHUNK_SIZE = 500;
+
+    /**
+     * Reads the next limit items whose id is greater than lastId, ordered by id.
+     */
+    public interface Chunk<T> {
+        List<T> read(long lastId, int limit);
+    }
+
+    /**
+     * Gives the id of an item, an entity or a projection.
+     */
+    public interface Key<T> {
+        long idOf(T item);
+    }
+
+    private KeysetStream() {
+    }
+
+    /**
+     * @return the number of items given to the consumer
+     */
+    public static <T> int forEach(Chunk<T> chunk, Key<T> key, EntityConsumer<? super T> consumer) {
+        int count = 0;
+        long lastId = 0; // the ids generated by SQLite start at 1
+        List<T> items;
+        do {
+            items = chunk.read(lastId, CHUNK_SIZE);
+            for (T item : items) {
+                consumer.accept(item);
+            }
+            count += items.size();
+            if (!items.isEmpty()) lastId = key.idOf(items.get(items.size() - 1));
+        } while (items.size() == CHUNK_SIZE);
+        return count;
+    }
+}
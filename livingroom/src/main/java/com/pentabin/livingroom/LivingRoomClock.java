@@ -0,0 +1,35 @@
+package com.pentabin.livingroom;
+
+/**
+ * The time of the created_at and updated_at timestamps set by the generated repositories.
+ * <p>
+ * The clock is read once per write, a batch gives the same timestamp to all its items.
+ * Tests can install a fixed clock with {@link #setInstance(LivingRoomClock)}.
+ */
+public abstract class LivingRoomClock {
+    public static final LivingRoomClock SYSTEM = new LivingRoomClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static volatile LivingRoomClock instance = SYSTEM;
+
+    public static LivingRoomClock getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param clock the clock used by the repositories from now on, {@link #SYSTEM} restores the default one
+     */
+    public static void setInstance(LivingRoomClock clock) {
+        if (clock == null) throw new IllegalArgumentException("clock == null");
+        instance = clock;
+    }
+
+    /**
+     * @return the current time in epoch milliseconds
+     */
+    public abstract long currentTimeMillis();
+}
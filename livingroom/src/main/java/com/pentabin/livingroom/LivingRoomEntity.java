@@ -0,0 +1,30 @@
+package com.pentabin.livingroom;
+
+import androidx.room.PrimaryKey;
+
+/**
+ * The columns shared by all the LivingRoom entities, the timestamps are declared by the subclasses:
+ * {@link BasicEntity} stores them as Dates, {@link BasicMillisEntity} as epoch milliseconds.
+ * Entities extend one of these two classes, not this one.
+ */
+public abstract class LivingRoomEntity {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    private boolean isDeleted;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public boolean isDeleted() {
+        return isDeleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        isDeleted = deleted;
+    }
+}
@@ -0,0 +1,181 @@
+package com.pentabin.livingroom;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the generated LivingRoom components.
+ * <p>
+ * <ul>
+ *     <li>{@link #diskIO()} a bounded pool running the queries, reads run in parallel.</li>
+ *     <li>{@link #writer()} runs the writes of the LivingRoom database one after the other, on top of {@link #diskIO()}.</li>
+ *     <li>{@link #mainThread()} delivers the results to the {@link ResultCallback}s.</li>
+ * </ul>
+ * </p>
+ * An application can plug its own disk I/O executor with {@link #setDiskIOExecutor(Executor)}
+ * before the first database access, for example in {@code Application.onCreate()}.
+ */
+public class LivingRoomExecutors {
+    private static final int DISK_IO_THREADS =
+            Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile LivingRoomExecutors INSTANCE;
+    private static Executor customDiskIO;
+
+    private final Executor diskIO;
+    private final Executor writer;
+    private final Executor mainThread;
+
+    private LivingRoomExecutors(Executor diskIO) {
+        this.diskIO = diskIO;
+        this.writer = new SerialExecutor(diskIO);
+        this.mainThread = new MainThreadExecutor();
+    }
+
+    public static LivingRoomExecutors getInstance() {
+        if (INSTANCE == null) {
+            synchronized (LivingRoomExecutors.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new LivingRoomExecutors(
+                            customDiskIO != null ? customDiskIO : newDiskIOExecutor());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the default disk I/O pool, the writer is built on top of this executor.
+     *
+     * @throws IllegalStateException if the executors are already in use
+     */
+    public static void setDiskIOExecutor(Executor executor) {
+        synchronized (LivingRoomExecutors.class) {
+            if (INSTANCE != null)
+                throw new IllegalStateException("setDiskIOExecutor() must be called before the first database access");
+            customDiskIO = executor;
+        }
+    }
+
+    public Executor diskIO() {
+        return diskIO;
+    }
+
+    public Executor writer() {
+        return writer;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Runs a write on the {@link #writer()}.
+     *
+     * @return a future holding the result of the write
+     */
+    public <T> Future<T> write(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        writer.execute(future);
+        return future;
+    }
+
+    /**
+     * Runs a write on the {@link #writer()} and posts its result, or its failure, to the callback on the main thread.
+     */
+    public <T> void write(Callable<T> task, ResultCallback<T> callback) {
+        execute(writer, task, callback);
+    }
+
+    /**
+     * Runs a query on the {@link #diskIO()} pool and posts its result, or its failure, to the callback on the main thread.
+     */
+    public <T> void read(Callable<T> task, ResultCallback<T> callback) {
+        execute(diskIO, task, callback);
+    }
+
+    private <T> void execute(Executor executor, final Callable<T> task, final ResultCallback<T> callback) {
+        executor.execute(() -> {
+            try {
+                final T result = task.call();
+                mainThread.execute(() -> callback.onSuccess(result));
+            } catch (final Exception e) {
+                mainThread.execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    private static Executor newDiskIOExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DISK_IO_THREADS, DISK_IO_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new DiskIOThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class DiskIOThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "livingroom-io-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Runs the tasks one at a time, in submission order, on the given executor.
+     */
+    private static class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Executor executor;
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(final Runnable r) {
+            tasks.offer(() -> {
+                try {
+                    r.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            if ((active = tasks.poll()) != null) {
+                executor.execute(active);
+            }
+        }
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable r) {
+            handler.post(r);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.pentabin.livingroom;
+
+import java.util.Arrays;
+
+/**
+ * A least recently used cache keyed by primitive long ids, without boxing the keys.
+ * <p>
+ * The entries live in fixed arrays of {@code maxSize} slots, linked from the most to the least recently used,
+ * and are found through an open addressing table. {@link #isEvictable(Object)} lets a subclass keep
+ * some entries, the least recently used evictable entry is dropped when the cache is full.
+ * Not thread safe.
+ *
+ * @param <V> the type of the values
+ */
+public class LongLruCache<V> {
+    private static final int NONE = -1;
+
+    private final int maxSize;
+    private final long[] keys;
+    private final Object[] values;
+    // doubly linked list of the used slots, from head (most recent) to tail (least recent),
+    // next also links the free slots
+    private final int[] previous;
+    private final int[] next;
+    // slot + 1, 0 for an empty cell
+    private final int[] table;
+    private final int mask;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free;
+    private int size;
+
+    public LongLruCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
+        this.maxSize = maxSize;
+        this.keys = new long[maxSize];
+        this.values = new Object[maxSize];
+        this.previous = new int[maxSize];
+        this.next = new int[maxSize];
+        int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        clear();
+    }
+
+    /**
+     * @return the value of the key, which becomes the most recently used, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int cell = find(key);
+        if (table[cell] == 0) return null;
+        int slot = table[cell] - 1;
+        moveToHead(slot);
+        return (V) values[slot];
+    }
+
+    /**
+     * @return the value of the key without changing the order of the entries, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V peek(long key) {
+        int cell = find(key);
+        return table[cell] == 0 ? null : (V) values[table[cell] - 1];
+    }
+
+    /**
+     * Adds or replaces the value of the key, evicting an entry if the cache is full.
+     * @return the previous value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int cell = find(key);
+        if (table[cell] != 0) {
+            int slot = table[cell] - 1;
+            V old = (V) values[slot];
+            values[slot] = value;
+            moveToHead(slot);
+            return old;
+        }
+        if (size == maxSize) {
+            evict();
+            cell = find(key);
+        }
+        int slot = free;
+        free = next[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        table[cell] = slot + 1;
+        linkHead(slot);
+        size++;
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int cell = find(key);
+        if (table[cell] == 0) return null;
+        int slot = table[cell] - 1;
+        V old = (V) values[slot];
+        removeCell(cell);
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, null);
+        for (int i = 0; i < maxSize; i++) {
+            next[i] = i + 1 < maxSize ? i + 1 : NONE;
+        }
+        free = 0;
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return false to keep the value when the cache is full, as long as another entry can be evicted
+     */
+    protected boolean isEvictable(V value) {
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evict() {
+        int slot = tail;
+        while (slot != NONE && !isEvictable((V) values[slot])) {
+            slot = previous[slot];
+        }
+        remove(keys[slot == NONE ? tail : slot]);
+    }
+
+    // the cell of the key, or the empty cell where it would be added
+    private int find(long key) {
+        int cell = hash(key) & mask;
+        while (table[cell] != 0 && keys[table[cell] - 1] != key) {
+            cell = (cell + 1) & mask;
+        }
+        return cell;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // backward shift deletion, keeps the probe sequences of the following keys unbroken
+    private void removeCell(int cell) {
+        table[cell] = 0;
+        int current = cell;
+        while (true) {
+            current = (current + 1) & mask;
+            if (table[current] == 0) return;
+            int ideal = hash(keys[table[current] - 1]) & mask;
+            boolean stays = cell <= current
+                    ? cell < ideal && ideal <= current
+                    : cell < ideal || ideal <= current;
+            if (!stays) {
+                table[cell] = table[current];
+                table[current] = 0;
+                cell = current;
+            }
+        }
+    }
+
+    private void moveToHead(int slot) {
+        if (slot == head) return;
+        unlink(slot);
+        linkHead(slot);
+    }
+
+    private void linkHead(int slot) {
+        previous[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) previous[head] = slot;
+        head = slot;
+        if (tail == NONE) tail = slot;
+    }
+
+    private void unlink(int slot) {
+        if (previous[slot] != NONE) next[previous[slot]] = next[slot];
+        else head = next[slot];
+        if (next[slot] != NONE) previous[next[slot]] = previous[slot];
+        else tail = previous[slot];
+    }
+}
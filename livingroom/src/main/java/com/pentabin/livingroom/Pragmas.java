@@ -0,0 +1,44 @@
+package com.pentabin.livingroom;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Runs the PRAGMA statements of the generated database.
+ * <p>
+ * Some pragmas return a row, which execSQL() rejects, and a query only runs when its cursor is moved:
+ * closing the cursor of a setting right away would leave it unapplied.
+ */
+public final class Pragmas {
+
+    private Pragmas() {
+    }
+
+    /**
+     * @return the first column of the first row as a long, -1 if the pragma returns no row
+     */
+    public static long run(SupportSQLiteDatabase db, String pragma) {
+        Cursor cursor = db.query(pragma);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads all the rows, for the pragmas doing one unit of work per row:
+     * incremental_vacuum frees one page per row.
+     */
+    public static void runToEnd(SupportSQLiteDatabase db, String pragma) {
+        Cursor cursor = db.query(pragma);
+        try {
+            while (cursor.moveToNext()) {
+                // each step of the statement does the work
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.pentabin.livingroom;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the LiveData of a parameterized select, used by the generated repositories.
+ * <p>
+ * The LiveData are keyed by the arguments of the query: the callers asking for the same arguments,
+ * at the same time or later, get the same LiveData and so share a single query, re-run by Room when the table changes.
+ * An entry leaves the cache when its last observer is removed, on the main thread like the observer changes.
+ * The cache is also bounded: beyond its size the least recently used entries are dropped,
+ * their observers keep receiving the query results.
+ *
+ * @param <T> the type of the query result
+ */
+public class QueryCache<T> {
+    public static final int DEFAULT_MAX_SIZE = 16;
+
+    /**
+     * Creates the LiveData of the query, called once per arguments while they are cached.
+     */
+    public interface Loader<T> {
+        LiveData<T> load();
+    }
+
+    // The LiveData given to the callers: forwards the query results, and leaves the cache when nobody observes it
+    private final class Entry extends MediatorLiveData<T> {
+        private final Object key;
+
+        Entry(Object key, LiveData<T> source) {
+            this.key = key;
+            addSource(source, this::setValue);
+        }
+
+        @Override
+        protected void onInactive() {
+            super.onInactive();
+            // Also called when the lifecycles of the observers stop, only removed observers evict the entry
+            if (!hasObservers()) evict(this);
+        }
+    }
+
+    // access order: the eldest entry is the least recently used
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxSize;
+
+    public QueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public QueryCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the LiveData of a query with a single argument, the argument itself is the key.
+     */
+    public LiveData<T> get(Loader<T> loader, Object arg) {
+        return getEntry(loader, arg);
+    }
+
+    public LiveData<T> get(Loader<T> loader, Object... args) {
+        return getEntry(loader, Arrays.asList(args));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized LiveData<T> getEntry(Loader<T> loader, Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, loader.load());
+            entries.put(key, entry);
+            trim();
+        }
+        return entry;
+    }
+
+    private synchronized void evict(Entry entry) {
+        // The key may already map to a newer entry if this one was dropped by trim()
+        if (entries.get(entry.key) == entry) entries.remove(entry.key);
+    }
+
+    private void trim() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pentabin.livingroom;
+
+/**
+ * Receives the outcome of an asynchronous database operation generated by LivingRoom,
+ * for example the id returned by {@code insertAsync(item, callback)}.
+ * <p>
+ * Both methods are called on the main thread.
+ *
+ * @param <T> the type of the result
+ */
+public interface ResultCallback<T> {
+    void onSuccess(T result);
+
+    void onError(Throwable error);
+}
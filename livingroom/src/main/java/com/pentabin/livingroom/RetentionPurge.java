@@ -0,0 +1,112 @@
+package com.pentabin.livingroom;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Deletes the rows of the entities marked with @Archivable(purgeAfterDays) or @Expirable, in the background.
+ * <p>
+ * Each {@link Step} deletes at most {@link #CHUNK_SIZE} rows per query, and each chunk is queued on the writer
+ * of {@link LivingRoomExecutors}: the writes of the application run between two chunks instead of waiting
+ * for the whole purge. Then, if the database uses {@code auto_vacuum = INCREMENTAL}, the freed pages are given
+ * back to the file system by an incremental vacuum, {@link #VACUUM_PAGES} pages at a time. Otherwise SQLite
+ * reuses them for the next rows: see {@link #enableIncrementalVacuum(RoomDatabase)} to convert the database.
+ * The purged items stay in the EntityCache of a @Cacheable entity until they are evicted.
+ */
+public final class RetentionPurge {
+    public static final int CHUNK_SIZE = 500;
+    public static final int VACUUM_PAGES = 256;
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    /**
+     * Deletes a chunk of the rows of an entity.
+     */
+    public interface Step {
+        /**
+         * @param now the time of the purge, the same for all the chunks
+         * @return the number of deleted rows, the step is done when it is below the limit
+         */
+        int delete(long now, int limit);
+    }
+
+    private final SupportSQLiteOpenHelper openHelper;
+    private final Step[] steps;
+    private final Executor writer;
+    private final long now;
+    private int step;
+    private int deleted;
+
+    RetentionPurge(SupportSQLiteOpenHelper openHelper, Executor writer, long now, Step[] steps) {
+        this.openHelper = openHelper;
+        this.steps = steps;
+        this.writer = writer;
+        this.now = now;
+    }
+
+    /**
+     * Queues the purge on the writer, returns immediately.
+     */
+    public static void schedule(RoomDatabase database, Step... steps) {
+        new RetentionPurge(database.getOpenHelper(), LivingRoomExecutors.getInstance().writer(),
+                LivingRoomClock.getInstance().currentTimeMillis(), steps).next();
+    }
+
+    /**
+     * Converts the database to {@code auto_vacuum = INCREMENTAL}, so the next purges give the freed pages back
+     * to the file system. Nothing is done if the database already uses it.
+     * <p>
+     * SQLite applies the change to an existing database with a full VACUUM, which rewrites the whole file:
+     * it needs free storage for a copy of the database, and the other writes wait until it is done.
+     * Call it once, for example after the upgrade of the application or when the device is idle.
+     * The conversion is queued on the writer, the method returns immediately.
+     */
+    public static void enableIncrementalVacuum(RoomDatabase database) {
+        SupportSQLiteOpenHelper openHelper = database.getOpenHelper();
+        LivingRoomExecutors.getInstance().writer().execute(() -> {
+            try {
+                convert(openHelper.getWritableDatabase());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    static void convert(SupportSQLiteDatabase db) {
+        if (Pragmas.run(db, "PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL) return;
+        Pragmas.run(db, "PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM");
+    }
+
+    void next() {
+        writer.execute(this::runChunk);
+    }
+
+    private void runChunk() {
+        try {
+            if (step < steps.length) {
+                int count = steps[step].delete(now, CHUNK_SIZE);
+                deleted += count;
+                if (count < CHUNK_SIZE) step++;
+                next();
+            } else if (deleted > 0 && vacuum()) {
+                next();
+            }
+        } catch (RuntimeException e) {
+            // the next purge starts again from the first step
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return true if free pages remain
+     */
+    private boolean vacuum() {
+        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
+        if (Pragmas.run(db, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) return false;
+        Pragmas.runToEnd(db, "PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")");
+        return Pragmas.run(db, "PRAGMA freelist_count") > 0;
+    }
+}
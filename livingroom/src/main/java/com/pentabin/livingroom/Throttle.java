@@ -0,0 +1,69 @@
+package com.pentabin.livingroom;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a task on an executor at most once per window, and never two runs at the same time.
+ * <p>
+ * A request during the window schedules a run at its end. A request during a run marks it dirty:
+ * the next run is scheduled once the current one has returned, so a run slower than the window does not
+ * overlap the next one, and the last run always starts after the last request.
+ */
+final class Throttle {
+
+    /**
+     * Delays the runs, the main thread Handler outside of the tests.
+     */
+    interface Timer {
+        void postDelayed(Runnable task, long delayMillis);
+
+        long uptimeMillis();
+    }
+
+    private final long windowMillis;
+    private final Executor executor;
+    private final Timer timer;
+    private final Runnable task;
+    private final Runnable dispatchTask;
+    private boolean scheduled;
+    private boolean running;
+    private boolean dirty;
+    private long lastRun = Long.MIN_VALUE / 2;
+
+    Throttle(long windowMillis, Executor executor, Timer timer, Runnable task) {
+        this.windowMillis = windowMillis;
+        this.executor = executor;
+        this.timer = timer;
+        this.task = task;
+        this.dispatchTask = () -> executor.execute(this::run);
+    }
+
+    synchronized void request() {
+        if (running) {
+            dirty = true;
+            return;
+        }
+        if (scheduled) return;
+        scheduled = true;
+        timer.postDelayed(dispatchTask, Math.max(0, lastRun + windowMillis - timer.uptimeMillis()));
+    }
+
+    private void run() {
+        synchronized (this) {
+            scheduled = false;
+            running = true;
+            lastRun = timer.uptimeMillis();
+        }
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                running = false;
+                if (dirty) {
+                    dirty = false;
+                    request();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pentabin.livingroom;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * The LiveData of a select with a throttle, used by the repositories for @SelectableAll(throttleMillis)
+ * and @SelectableWhere(throttleMillis).
+ * <p>
+ * Room re-runs the query of its LiveData after each write to the tables. Here the writes only schedule the query:
+ * it runs at most once per {@code throttleMillis}, on the disk I/O executor of {@link LivingRoomExecutors},
+ * one query at a time, and a write after the start of a query always schedules another one once it has returned,
+ * so the observers get the final state.
+ * A burst of writes costs one query per window instead of one per write.
+ *
+ * @param <T> the type of the query result
+ */
+public class ThrottledQueryLiveData<T> extends LiveData<T> {
+
+    /**
+     * Runs the query, on a background thread.
+     */
+    public interface Query<T> {
+        T run();
+    }
+
+    private final InvalidationTracker tracker;
+    private final InvalidationTracker.Observer observer;
+    private final Query<T> query;
+    private final Executor diskIO;
+    private final Throttle throttle;
+    private boolean observing;
+
+    public ThrottledQueryLiveData(RoomDatabase database, long throttleMillis, Query<T> query, String... tables) {
+        this(database, new MainThreadTimer(), throttleMillis, query, tables);
+    }
+
+    ThrottledQueryLiveData(RoomDatabase database, Throttle.Timer timer, long throttleMillis, Query<T> query,
+                           String... tables) {
+        this.tracker = database.getInvalidationTracker();
+        this.query = query;
+        this.diskIO = LivingRoomExecutors.getInstance().diskIO();
+        this.throttle = new Throttle(throttleMillis, diskIO, timer, this::run);
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(Set<String> invalidated) {
+                throttle.request();
+            }
+        };
+    }
+
+    private void run() {
+        synchronized (this) {
+            // the observer syncs the triggers of Room, off the main thread
+            if (!observing) {
+                tracker.addObserver(observer);
+                observing = true;
+            }
+        }
+        postValue(query.run());
+    }
+
+    // The tables may have changed while nobody was observing
+    @Override
+    protected void onActive() {
+        throttle.request();
+    }
+
+    @Override
+    protected void onInactive() {
+        diskIO.execute(() -> {
+            synchronized (this) {
+                if (observing && !hasActiveObservers()) {
+                    tracker.removeObserver(observer);
+                    observing = false;
+                }
+            }
+        });
+    }
+
+    private static class MainThreadTimer implements Throttle.Timer {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            handler.postDelayed(task, delayMillis);
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    }
+}
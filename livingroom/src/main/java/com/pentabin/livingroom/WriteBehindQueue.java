@@ -0,0 +1,96 @@
+package com.pentabin.livingroom;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.collection.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers full-row updates of an entity, used by the repositories generated for entities marked with @WriteBehind.
+ * <p>
+ * Pending items are keyed by id, so several updates of the same row are collapsed into the last one,
+ * and written in the order of their ids.
+ * The pending items are handed to the {@link Flusher} on the writer of {@link LivingRoomExecutors}
+ * when the window elapses, when {@code maxItems} items are pending, or when {@link #flush()} is called.
+ *
+ * @param <T> the entity type
+ */
+public class WriteBehindQueue<T extends LivingRoomEntity> {
+
+    /**
+     * Writes a window of pending items, in a single transaction.
+     */
+    public interface Flusher<T> {
+        void flush(List<T> items);
+    }
+
+    // keyed by the primitive id, no boxing on each update
+    private final LongSparseArray<T> pending = new LongSparseArray<>();
+    private final long windowMillis;
+    private final int maxItems;
+    private final Flusher<T> flusher;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+    private boolean scheduled;
+
+    public WriteBehindQueue(long windowMillis, int maxItems, Flusher<T> flusher) {
+        this.windowMillis = windowMillis;
+        this.maxItems = maxItems;
+        this.flusher = flusher;
+    }
+
+    public void enqueue(T item) {
+        boolean full;
+        synchronized (this) {
+            pending.put(item.getId(), item);
+            full = pending.size() >= maxItems;
+            if (!full && !scheduled) {
+                scheduled = true;
+                handler.postDelayed(flushTask, windowMillis);
+            }
+        }
+        if (full) flush();
+    }
+
+    public void enqueueAll(List<T> items) {
+        for (T item : items) {
+            enqueue(item);
+        }
+    }
+
+    /**
+     * Drops the pending update of an item, used before deleting it.
+     */
+    public synchronized void discard(T item) {
+        pending.remove(item.getId());
+    }
+
+    public synchronized void discardAll(List<T> items) {
+        for (T item : items) {
+            pending.remove(item.getId());
+        }
+    }
+
+    /**
+     * Writes the pending items now. The write is queued on the writer, after the writes already submitted.
+     */
+    public void flush() {
+        final List<T> items;
+        synchronized (this) {
+            if (scheduled) {
+                handler.removeCallbacks(flushTask);
+                scheduled = false;
+            }
+            if (pending.size() == 0) return;
+            items = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                items.add(pending.valueAt(i));
+            }
+            pending.clear();
+        }
+        LivingRoomExecutors.getInstance().writer().execute(() -> flusher.flush(items));
+    }
+}
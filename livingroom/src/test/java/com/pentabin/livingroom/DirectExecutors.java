@@ -0,0 +1,19 @@
+package com.pentabin.livingroom;
+
+/**
+ * Runs the disk I/O of {@link LivingRoomExecutors}, and so its writer, on the calling thread.
+ * The executors are a process singleton: every test using them installs the direct executor first.
+ */
+final class DirectExecutors {
+
+    private DirectExecutors() {
+    }
+
+    static void install() {
+        try {
+            LivingRoomExecutors.setDiskIOExecutor(Runnable::run);
+        } catch (IllegalStateException alreadyInstalled) {
+            // installed by a previous test
+        }
+    }
+}
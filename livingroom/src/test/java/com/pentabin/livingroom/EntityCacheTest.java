@@ -0,0 +1,181 @@
+package com.pentabin.livingroom;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EntityCacheTest {
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final Map<Long, Item> table = new HashMap<>();
+    private int loads;
+    // runs during the next load, as a write landing while the item is read
+    private Runnable duringLoad;
+    // fails the next load, as a SQLiteException
+    private boolean failLoad;
+
+    private final EntityCache<Item> cache = new EntityCache<>(2, id -> {
+        loads++;
+        if (failLoad) {
+            failLoad = false;
+            throw new IllegalStateException("disk I/O error");
+        }
+        Item item = table.get(id);
+        if (duringLoad != null) {
+            Runnable write = duringLoad;
+            duringLoad = null;
+            write.run();
+        }
+        return item;
+    });
+
+    static class Item extends LivingRoomEntity {
+        final String name;
+
+        Item(long id, String name) {
+            setId(id);
+            this.name = name;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        DirectExecutors.install();
+        table.put(1L, new Item(1, "a"));
+        table.put(2L, new Item(2, "b"));
+        table.put(3L, new Item(3, "c"));
+    }
+
+    @Test
+    public void loadsOnceAndCountsHits() {
+        LiveData<Item> first = cache.get(1);
+        assertEquals("a", first.getValue().name);
+        assertSame(first, cache.get(1));
+        assertEquals(1, loads);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void refreshesAndRemovesTheCachedItems() {
+        LiveData<Item> liveData = cache.get(1);
+        cache.refresh(new Item(1, "changed"));
+        assertEquals("changed", liveData.getValue().name);
+        cache.refreshAll(Arrays.asList(new Item(1, "again"), new Item(2, "not cached")));
+        assertEquals("again", liveData.getValue().name);
+        assertEquals(1, cache.size());
+        cache.remove(new Item(1, "again"));
+        assertNull(liveData.getValue());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void setsTheIdsOfTheInsertedItems() {
+        LiveData<Item> liveData = cache.get(3);
+        Item inserted = new Item(0, "inserted");
+        assertEquals(3, cache.inserted(inserted, 3));
+        assertEquals(3, inserted.getId());
+        assertSame(inserted, liveData.getValue());
+        long[] ids = cache.insertedAll(Arrays.asList(new Item(0, "x"), new Item(0, "y")), new long[]{4, 5});
+        assertEquals(2, ids.length);
+    }
+
+    @Test
+    public void ignoresAFailedUpsert() {
+        LiveData<Item> liveData = cache.get(3);
+        Item failed = new Item(3, "failed");
+        assertEquals(-1, cache.inserted(failed, -1));
+        assertEquals(3, failed.getId());
+        assertEquals("c", liveData.getValue().name);
+    }
+
+    @Test
+    public void aWriteDuringTheLoadWins() {
+        duringLoad = () -> cache.refresh(new Item(1, "written"));
+        LiveData<Item> liveData = cache.get(1);
+        assertEquals("written", liveData.getValue().name);
+    }
+
+    @Test
+    public void reloadsTheCachedItems() {
+        LiveData<Item> liveData = cache.get(1);
+        table.put(1L, new Item(1, "reloaded"));
+        cache.reload(1);
+        assertEquals("reloaded", liveData.getValue().name);
+        assertEquals(2, loads);
+        // not cached: nothing to reload
+        cache.reload(2);
+        assertEquals(2, loads);
+    }
+
+    @Test
+    public void aWriteDuringTheReloadWins() {
+        LiveData<Item> liveData = cache.get(1);
+        duringLoad = () -> cache.refresh(new Item(1, "written"));
+        cache.reload(1);
+        assertEquals("written", liveData.getValue().name);
+    }
+
+    @Test
+    public void evictsTheItemsNobodyObservesFirst() {
+        LiveData<Item> observed = cache.get(1);
+        observed.observeForever(item -> { });
+        cache.get(2);
+        cache.get(3);
+        assertSame(observed, cache.get(1));
+        assertEquals(2, cache.size());
+        LiveData<Item> second = cache.get(2);
+        assertEquals(4, loads);
+        assertNotSame(observed, second);
+    }
+
+    @Test
+    public void retriesAFailedLoad() {
+        failLoad = true;
+        LiveData<Item> failed = cache.get(1);
+        assertNull(failed.getValue());
+        assertEquals(0, cache.size());
+
+        LiveData<Item> retried = cache.get(1);
+        assertNotSame(failed, retried);
+        assertEquals("a", retried.getValue().name);
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void retriesAFailedReload() {
+        LiveData<Item> liveData = cache.get(1);
+        failLoad = true;
+        cache.reload(1);
+        assertEquals(0, cache.size());
+
+        table.put(1L, new Item(1, "reloaded"));
+        assertEquals("reloaded", cache.get(1).getValue().name);
+        assertNotSame(liveData, cache.get(1));
+    }
+
+    @Test
+    public void evictsTheItemsNoLongerObserved() {
+        LiveData<Item> observed = cache.get(1);
+        Observer<Item> observer = item -> { };
+        observed.observeForever(observer);
+        observed.removeObserver(observer);
+        cache.get(2);
+        cache.get(3);
+        assertNotSame(observed, cache.get(1));
+    }
+}
@@ -0,0 +1,36 @@
+package com.pentabin.livingroom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FtsQueryTest {
+
+    @Test
+    public void quotesEachWord() {
+        assertEquals("\"room\" \"android\"", FtsQuery.escape("room android"));
+        assertEquals("\"room\" \"android\"", FtsQuery.escape("  room\tandroid \n"));
+    }
+
+    @Test
+    public void keepsThePrefixQueries() {
+        assertEquals("\"andr*\"", FtsQuery.escape("andr*"));
+    }
+
+    @Test
+    public void dropsTheDoubleQuotes() {
+        assertEquals("\"room\" \"andr*\"", FtsQuery.escape("room \"andr*"));
+        assertEquals("\"say\"", FtsQuery.escape("\"\" say\""));
+    }
+
+    @Test
+    public void matchesTheOperatorsAsWords() {
+        assertEquals("\"title:room\" \"OR\" \"-android\"", FtsQuery.escape("title:room OR -android"));
+    }
+
+    @Test
+    public void emptyText() {
+        assertEquals("", FtsQuery.escape(""));
+        assertEquals("", FtsQuery.escape(" * \" "));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pentabin.livingroom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeysetStreamTest {
+
+    private final List<Long> lastIds = new ArrayList<>();
+
+    // a table of the ids 1..size, read as SELECT id WHERE id > :lastId ORDER BY id LIMIT :limit
+    private KeysetStream.Chunk<Long> table(long size) {
+        return (lastId, limit) -> {
+            lastIds.add(lastId);
+            List<Long> chunk = new ArrayList<>();
+            for (long id = lastId + 1; id <= size && chunk.size() < limit; id++) {
+                chunk.add(id);
+            }
+            return chunk;
+        };
+    }
+
+    private int walk(KeysetStream.Chunk<Long> chunk, List<Long> seen) {
+        return KeysetStream.forEach(chunk, id -> id, seen::add);
+    }
+
+    @Test
+    public void walksAnEmptyTable() {
+        List<Long> seen = new ArrayList<>();
+        assertEquals(0, walk(table(0), seen));
+        assertEquals(0, seen.size());
+        assertEquals(1, lastIds.size());
+    }
+
+    @Test
+    public void seeksTheLastIdOfEachChunk() {
+        List<Long> seen = new ArrayList<>();
+        assertEquals(1200, walk(table(1200), seen));
+        assertEquals(1200, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(i + 1, (long) seen.get(i));
+        }
+        List<Long> expected = new ArrayList<>();
+        expected.add(0L);
+        expected.add(500L);
+        expected.add(1000L);
+        assertEquals(expected, lastIds);
+    }
+
+    @Test
+    public void readsOneMoreChunkAfterAFullLastOne() {
+        // a full chunk can't tell the end of the table
+        assertEquals(2 * KeysetStream.CHUNK_SIZE, walk(table(2 * KeysetStream.CHUNK_SIZE), new ArrayList<>()));
+        assertEquals(3, lastIds.size());
+    }
+
+    @Test
+    public void seesRowsWrittenAfterTheLastIdRead() {
+        long[] size = {KeysetStream.CHUNK_SIZE};
+        KeysetStream.Chunk<Long> growing = (lastId, limit) -> {
+            List<Long> chunk = table(size[0]).read(lastId, limit);
+            size[0] = KeysetStream.CHUNK_SIZE + 10; // rows inserted during the walk
+            return chunk;
+        };
+        List<Long> seen = new ArrayList<>();
+        assertEquals(KeysetStream.CHUNK_SIZE + 10, walk(growing, seen));
+        assertEquals(KeysetStream.CHUNK_SIZE + 10, (long) seen.get(seen.size() - 1));
+    }
+}
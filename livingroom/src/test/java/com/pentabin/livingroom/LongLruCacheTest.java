@@ -0,0 +1,128 @@
+package com.pentabin.livingroom;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LongLruCacheTest {
+
+    @Test
+    public void putsGetsAndReplaces() {
+        LongLruCache<String> cache = new LongLruCache<>(4);
+        assertNull(cache.put(1, "a"));
+        assertNull(cache.put(-7, "b"));
+        assertEquals("a", cache.get(1));
+        assertEquals("b", cache.get(-7));
+        assertNull(cache.get(2));
+        assertEquals("a", cache.put(1, "c"));
+        assertEquals("c", cache.get(1));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void removes() {
+        LongLruCache<String> cache = new LongLruCache<>(4);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        assertEquals("a", cache.remove(1));
+        assertNull(cache.remove(1));
+        assertNull(cache.get(1));
+        assertEquals("b", cache.get(2));
+        assertEquals(1, cache.size());
+        // the freed slot is reused
+        cache.put(3, "c");
+        cache.put(4, "d");
+        cache.put(5, "e");
+        assertEquals(4, cache.size());
+        assertEquals("b", cache.get(2));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        LongLruCache<String> cache = new LongLruCache<>(3);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        cache.get(1);
+        cache.peek(2);
+        cache.put(4, "d");
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals("c", cache.get(3));
+        assertEquals("d", cache.get(4));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void keepsTheEntriesThatAreNotEvictable() {
+        LongLruCache<String> cache = new LongLruCache<String>(2) {
+            @Override
+            protected boolean isEvictable(String value) {
+                return !value.startsWith("kept");
+            }
+        };
+        cache.put(1, "kept");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        assertEquals("kept", cache.get(1));
+        assertNull(cache.get(2));
+        // nothing else can be evicted: the least recently used entry goes
+        cache.put(4, "kept too");
+        cache.put(5, "kept again");
+        assertNull(cache.get(1));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void wrapsAroundTheEndOfTheTable() {
+        // 8 cells: the keys whose probe starts near the end continue at the start of the table
+        LongLruCache<Long> cache = new LongLruCache<>(4);
+        long[] keys = new long[4];
+        int found = 0;
+        for (long key = 0; found < keys.length; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if ((((int) (h ^ (h >>> 32))) & 7) == 7) keys[found++] = key;
+        }
+        for (long key : keys) {
+            cache.put(key, key);
+        }
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), cache.get(key));
+        }
+        // removing the first key shifts the others back across the end of the table
+        cache.remove(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            assertEquals(Long.valueOf(keys[i]), cache.get(keys[i]));
+        }
+        assertNull(cache.get(keys[0]));
+    }
+
+    @Test
+    public void matchesAMapUnderRandomOperations() {
+        LongLruCache<Long> cache = new LongLruCache<>(64);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(48);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, (long) i), cache.put(key, (long) i));
+            } else {
+                assertEquals(expected.remove(key), cache.remove(key));
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), cache.peek(entry.getKey()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyCache() {
+        new LongLruCache<String>(0);
+    }
+}
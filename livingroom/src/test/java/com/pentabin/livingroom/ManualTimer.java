@@ -0,0 +1,34 @@
+package com.pentabin.livingroom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A manual clock for {@link Throttle}: the delayed tasks run when the time is advanced past them.
+ */
+final class ManualTimer implements Throttle.Timer {
+    final List<long[]> times = new ArrayList<>();
+    final List<Runnable> tasks = new ArrayList<>();
+    long now = 1000;
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        times.add(new long[]{now + delayMillis});
+        tasks.add(task);
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return now;
+    }
+
+    void advance(long millis) {
+        now += millis;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (times.get(i)[0] <= now) {
+                times.remove(i);
+                tasks.remove(i--).run();
+            }
+        }
+    }
+}
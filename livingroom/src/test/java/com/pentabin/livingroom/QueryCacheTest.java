@@ -0,0 +1,100 @@
+package com.pentabin.livingroom;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class QueryCacheTest {
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private int loads;
+
+    private QueryCache.Loader<String> loader(LiveData<String> source) {
+        return () -> {
+            loads++;
+            return source;
+        };
+    }
+
+    @Test
+    public void sharesTheLiveDataOfTheSameArguments() {
+        QueryCache<String> cache = new QueryCache<>();
+        MutableLiveData<String> source = new MutableLiveData<>();
+        LiveData<String> first = cache.get(loader(source), 1, "a");
+        assertSame(first, cache.get(loader(source), 1, "a"));
+        assertNotSame(first, cache.get(loader(source), 2, "a"));
+        assertSame(cache.get(loader(source), 3L), cache.get(loader(source), 3L));
+        assertEquals(3, loads);
+    }
+
+    @Test
+    public void forwardsTheQueryResults() {
+        QueryCache<String> cache = new QueryCache<>();
+        MutableLiveData<String> source = new MutableLiveData<>();
+        List<String> values = new ArrayList<>();
+        cache.get(loader(source), 1).observeForever(values::add);
+        source.setValue("a");
+        source.setValue("b");
+        assertEquals(2, values.size());
+        assertEquals("b", values.get(1));
+    }
+
+    @Test
+    public void evictsWhenTheLastObserverIsRemoved() {
+        QueryCache<String> cache = new QueryCache<>();
+        MutableLiveData<String> source = new MutableLiveData<>();
+        Observer<String> first = value -> { };
+        Observer<String> second = value -> { };
+        LiveData<String> liveData = cache.get(loader(source), 1);
+        liveData.observeForever(first);
+        liveData.observeForever(second);
+        liveData.removeObserver(first);
+        assertSame(liveData, cache.get(loader(source), 1));
+        liveData.removeObserver(second);
+        assertNotSame(liveData, cache.get(loader(source), 1));
+        assertEquals(2, loads);
+    }
+
+    @Test
+    public void dropsTheLeastRecentlyUsedBeyondItsSize() {
+        QueryCache<String> cache = new QueryCache<>(2);
+        MutableLiveData<String> source = new MutableLiveData<>();
+        LiveData<String> one = cache.get(loader(source), 1);
+        cache.get(loader(source), 2);
+        cache.get(loader(source), 1);
+        cache.get(loader(source), 3);
+        assertSame(one, cache.get(loader(source), 1));
+        assertEquals(3, loads);
+        cache.get(loader(source), 2);
+        assertEquals(4, loads);
+    }
+
+    @Test
+    public void droppedEntryKeepsForwarding() {
+        QueryCache<String> cache = new QueryCache<>(1);
+        MutableLiveData<String> source = new MutableLiveData<>();
+        List<String> values = new ArrayList<>();
+        Observer<String> observer = values::add;
+        LiveData<String> dropped = cache.get(loader(source), 1);
+        dropped.observeForever(observer);
+        cache.get(loader(source), 2);
+        source.setValue("a");
+        assertEquals(1, values.size());
+        LiveData<String> reloaded = cache.get(loader(source), 1);
+        // Removing the observer of the dropped entry leaves its replacement in the cache
+        dropped.removeObserver(observer);
+        assertSame(reloaded, cache.get(loader(source), 1));
+    }
+}
@@ -0,0 +1,154 @@
+package com.pentabin.livingroom;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetentionPurgeTest {
+    private static final long NOW = 1000L;
+
+    private final Queue<Runnable> writer = new ArrayDeque<>();
+    private final List<String> statements = new ArrayList<>();
+    private long autoVacuum;
+    private long freePages;
+
+    // The pragmas of the purge against an in-memory model of the database file
+    private final SupportSQLiteDatabase db = proxy(SupportSQLiteDatabase.class, (method, args) -> {
+        String sql = args != null && args.length > 0 ? String.valueOf(args[0]) : null;
+        if (sql != null) statements.add(sql);
+        if (method.equals("query")) {
+            if (sql.equals("PRAGMA auto_vacuum")) return cursor(autoVacuum);
+            if (sql.equals("PRAGMA auto_vacuum = INCREMENTAL")) autoVacuum = 2;
+            if (sql.equals("PRAGMA freelist_count")) return cursor(freePages);
+            if (sql.startsWith("PRAGMA incremental_vacuum")) {
+                long freed = Math.min(freePages, RetentionPurge.VACUUM_PAGES);
+                freePages -= freed;
+                return cursor(new long[(int) freed]);
+            }
+            return cursor();
+        }
+        return null;
+    });
+
+    private final SupportSQLiteOpenHelper openHelper = proxy(SupportSQLiteOpenHelper.class,
+            (method, args) -> method.equals("getWritableDatabase") ? db : null);
+
+    private interface Answer {
+        Object invoke(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            Object result = answer.invoke(method.getName(), args);
+            if (result == null && method.getReturnType() == boolean.class) return false;
+            return result;
+        });
+    }
+
+    private static Cursor cursor(long... rows) {
+        int[] position = {-1};
+        return proxy(Cursor.class, (method, args) -> {
+            switch (method) {
+                case "moveToFirst":
+                    position[0] = 0;
+                    return rows.length > 0;
+                case "moveToNext":
+                    return ++position[0] < rows.length;
+                case "getLong":
+                    return rows[position[0]];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    // Runs the queued chunks, as the writer does
+    private int drain() {
+        int chunks = 0;
+        for (Runnable chunk; (chunk = writer.poll()) != null; chunks++) {
+            chunk.run();
+        }
+        return chunks;
+    }
+
+    @Test
+    public void deletesInChunks() {
+        int[] remaining = {1100, 0};
+        List<Long> times = new ArrayList<>();
+        RetentionPurge.Step[] steps = new RetentionPurge.Step[2];
+        for (int i = 0; i < steps.length; i++) {
+            int step = i;
+            steps[i] = (now, limit) -> {
+                times.add(now);
+                int count = Math.min(remaining[step], limit);
+                remaining[step] -= count;
+                return count;
+            };
+        }
+        new RetentionPurge(openHelper, writer::add, NOW, steps).next();
+
+        // one chunk queued at a time, the other writes run in between
+        assertEquals(1, writer.size());
+        drain();
+        assertEquals(0, remaining[0]);
+        // 500 + 500 + 100, then the empty second step
+        assertEquals(Arrays.asList(NOW, NOW, NOW, NOW), times);
+    }
+
+    @Test
+    public void leavesTheFreePagesWithoutIncrementalAutoVacuum() {
+        freePages = 1000;
+        new RetentionPurge(openHelper, writer::add, NOW, new RetentionPurge.Step[]{(now, limit) -> 10}).next();
+        drain();
+
+        assertEquals(Arrays.asList("PRAGMA auto_vacuum"), statements);
+        assertEquals(0, autoVacuum);
+    }
+
+    @Test
+    public void vacuumsIncrementally() {
+        autoVacuum = 2;
+        freePages = 600;
+        new RetentionPurge(openHelper, writer::add, NOW, new RetentionPurge.Step[]{(now, limit) -> 10}).next();
+        // the delete, then one chunk of vacuum per 256 pages
+        assertEquals(4, drain());
+
+        assertEquals(0, freePages);
+        assertFalse(statements.contains("VACUUM"));
+    }
+
+    @Test
+    public void doesNotVacuumWhenNothingIsDeleted() {
+        autoVacuum = 2;
+        freePages = 600;
+        new RetentionPurge(openHelper, writer::add, NOW, new RetentionPurge.Step[]{(now, limit) -> 0}).next();
+        drain();
+
+        assertTrue(statements.isEmpty());
+    }
+
+    @Test
+    public void convertsOnce() {
+        RetentionPurge.convert(db);
+        assertEquals(Arrays.asList("PRAGMA auto_vacuum", "PRAGMA auto_vacuum = INCREMENTAL", "VACUUM"), statements);
+
+        statements.clear();
+        RetentionPurge.convert(db);
+        assertEquals(Arrays.asList("PRAGMA auto_vacuum"), statements);
+    }
+}
@@ -0,0 +1,155 @@
+package com.pentabin.livingroom;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThrottleTest {
+    private static final long WINDOW = 100;
+
+    private final ManualTimer timer = new ManualTimer();
+    private final Queue<Runnable> executor = new ArrayDeque<>();
+
+    private void runExecutor() {
+        for (Runnable task; (task = executor.poll()) != null; ) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void runsOncePerWindow() {
+        AtomicInteger runs = new AtomicInteger();
+        Throttle throttle = new Throttle(WINDOW, executor::add, timer, runs::incrementAndGet);
+        throttle.request();
+        throttle.request();
+        timer.advance(0);
+        runExecutor();
+        assertEquals(1, runs.get());
+
+        timer.advance(10);
+        throttle.request();
+        throttle.request();
+        assertEquals(1, timer.tasks.size());
+        timer.advance(89);
+        assertTrue(executor.isEmpty());
+        timer.advance(1);
+        runExecutor();
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void aRequestDuringASlowRunWaitsForItsEnd() {
+        List<Integer> postedDuringRun = new ArrayList<>();
+        AtomicInteger runs = new AtomicInteger();
+        Throttle[] throttle = new Throttle[1];
+        throttle[0] = new Throttle(WINDOW, executor::add, timer, () -> {
+            if (runs.incrementAndGet() == 1) {
+                // slower than the window, and a write lands while it runs
+                timer.now += 3 * WINDOW;
+                throttle[0].request();
+                throttle[0].request();
+                postedDuringRun.add(timer.tasks.size());
+            }
+        });
+        throttle[0].request();
+        timer.advance(0);
+        runExecutor();
+
+        assertEquals(Collections.singletonList(0), postedDuringRun);
+        // scheduled once the slow run has returned, without waiting for another window
+        assertEquals(1, timer.tasks.size());
+        timer.advance(0);
+        runExecutor();
+        assertEquals(2, runs.get());
+        assertTrue(timer.tasks.isEmpty());
+    }
+
+    @Test
+    public void aFailedRunStillSchedulesTheNextOne() {
+        AtomicInteger runs = new AtomicInteger();
+        Throttle[] throttle = new Throttle[1];
+        throttle[0] = new Throttle(WINDOW, executor::add, timer, () -> {
+            if (runs.incrementAndGet() == 1) {
+                throttle[0].request();
+                throw new IllegalStateException("query failed");
+            }
+        });
+        throttle[0].request();
+        timer.advance(0);
+        try {
+            runExecutor();
+        } catch (IllegalStateException expected) {
+            // thrown on the executor thread
+        }
+        timer.advance(WINDOW);
+        runExecutor();
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void slowQueriesOnAPoolDeliverTheFinalState() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        Throttle.Timer realTimer = new Throttle.Timer() {
+            @Override
+            public void postDelayed(Runnable task, long delayMillis) {
+                scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public long uptimeMillis() {
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+        };
+        AtomicInteger version = new AtomicInteger();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        // a 30 ms query behind a 5 ms window
+        Throttle throttle = new Throttle(5, pool, realTimer, () -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            int read = version.get();
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            results.add(read);
+            concurrent.decrementAndGet();
+        });
+        try {
+            for (int i = 0; i < 40; i++) {
+                version.incrementAndGet();
+                throttle.request();
+                Thread.sleep(5);
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline
+                    && (results.isEmpty() || results.get(results.size() - 1) != version.get())) {
+                Thread.sleep(10);
+            }
+        } finally {
+            pool.shutdown();
+            scheduler.shutdown();
+        }
+
+        assertEquals(1, maxConcurrent.get());
+        assertEquals(version.get(), (int) results.get(results.size() - 1));
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1) <= results.get(i));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.pentabin.livingroom;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+import androidx.room.DatabaseConfiguration;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThrottledQueryLiveDataTest {
+    private static final long WINDOW = 500;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // Keeps the observers instead of syncing the triggers of a database
+    private static class Tracker extends InvalidationTracker {
+        final List<Observer> observers = new ArrayList<>();
+
+        Tracker(RoomDatabase database) {
+            super(database, "Item");
+        }
+
+        @Override
+        public void addObserver(Observer observer) {
+            observers.add(observer);
+        }
+
+        @Override
+        public void removeObserver(Observer observer) {
+            observers.remove(observer);
+        }
+
+        void invalidate() {
+            for (Observer observer : new ArrayList<>(observers)) {
+                observer.onInvalidated(Collections.singleton("Item"));
+            }
+        }
+    }
+
+    private static class Database extends RoomDatabase {
+        @Override
+        protected SupportSQLiteOpenHelper createOpenHelper(DatabaseConfiguration config) {
+            return null;
+        }
+
+        @Override
+        protected InvalidationTracker createInvalidationTracker() {
+            return new Tracker(this);
+        }
+
+        @Override
+        public void clearAllTables() {
+        }
+    }
+
+    private final Database database = new Database();
+    private final Tracker tracker = (Tracker) database.getInvalidationTracker();
+    private final ManualTimer timer = new ManualTimer();
+    private final List<Integer> values = new ArrayList<>();
+    private final Observer<Integer> observer = values::add;
+    private int queries;
+    private ThrottledQueryLiveData<Integer> liveData;
+
+    @Before
+    public void setUp() {
+        DirectExecutors.install();
+        liveData = new ThrottledQueryLiveData<>(database, timer, WINDOW, () -> ++queries, "Item");
+    }
+
+    @Test
+    public void runsTheQueryWhenObserved() {
+        liveData.observeForever(observer);
+        assertEquals(0, queries);
+
+        timer.advance(0);
+        assertEquals(1, queries);
+        assertEquals(Collections.singletonList(1), values);
+        assertEquals(1, tracker.observers.size());
+    }
+
+    @Test
+    public void runsOneQueryPerWindowOfWrites() {
+        liveData.observeForever(observer);
+        timer.advance(0);
+
+        for (int i = 0; i < 10; i++) {
+            tracker.invalidate();
+            timer.advance(WINDOW / 10 - 1);
+        }
+        assertEquals(1, queries);
+        timer.advance(10);
+        assertEquals(2, queries);
+        assertEquals(2, (int) values.get(values.size() - 1));
+    }
+
+    @Test
+    public void stopsTrackingWithoutObservers() {
+        liveData.observeForever(observer);
+        timer.advance(0);
+        liveData.removeObserver(observer);
+        assertEquals(0, tracker.observers.size());
+
+        // the tables may have changed meanwhile
+        liveData.observeForever(observer);
+        timer.advance(WINDOW);
+        assertEquals(2, queries);
+        assertEquals(1, tracker.observers.size());
+    }
+}
@@ -0,0 +1,100 @@
+package com.pentabin.livingroom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The window never elapses on the JVM, the Handler is a stub: the items are written by maxItems or by flush().
+ */
+public class WriteBehindQueueTest {
+
+    private final List<List<Item>> flushes = new ArrayList<>();
+    private final WriteBehindQueue<Item> queue = new WriteBehindQueue<>(1000, 3, flushes::add);
+
+    static class Item extends LivingRoomEntity {
+        final String name;
+
+        Item(long id, String name) {
+            setId(id);
+            this.name = name;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        DirectExecutors.install();
+    }
+
+    @Test
+    public void collapsesUpdatesOfTheSameRow() {
+        Item last = new Item(1, "c");
+        queue.enqueue(new Item(1, "a"));
+        queue.enqueue(new Item(1, "b"));
+        queue.enqueue(last);
+        queue.flush();
+
+        assertEquals(1, flushes.size());
+        assertEquals(1, flushes.get(0).size());
+        assertSame(last, flushes.get(0).get(0));
+    }
+
+    @Test
+    public void writesInTheOrderOfTheIds() {
+        queue.enqueueAll(Arrays.asList(new Item(7, "a"), new Item(2, "b")));
+        queue.flush();
+
+        assertEquals(2, flushes.get(0).get(0).getId());
+        assertEquals(7, flushes.get(0).get(1).getId());
+    }
+
+    @Test
+    public void flushesWhenMaxItemsArePending() {
+        queue.enqueue(new Item(1, "a"));
+        queue.enqueue(new Item(2, "b"));
+        assertEquals(0, flushes.size());
+
+        queue.enqueue(new Item(3, "c"));
+        assertEquals(1, flushes.size());
+        assertEquals(3, flushes.get(0).size());
+    }
+
+    @Test
+    public void discardedItemsAreNotWritten() {
+        Item deleted = new Item(1, "a");
+        queue.enqueue(deleted);
+        queue.enqueue(new Item(2, "b"));
+        queue.discard(deleted);
+        queue.flush();
+
+        assertEquals(1, flushes.get(0).size());
+        assertEquals(2, flushes.get(0).get(0).getId());
+    }
+
+    @Test
+    public void flushOfAnEmptyQueueWritesNothing() {
+        queue.enqueue(new Item(1, "a"));
+        queue.discardAll(Arrays.asList(new Item(1, "a")));
+        queue.flush();
+        queue.flush();
+
+        assertEquals(0, flushes.size());
+    }
+
+    @Test
+    public void flushEmptiesTheQueue() {
+        queue.enqueue(new Item(1, "a"));
+        queue.flush();
+        queue.enqueue(new Item(2, "b"));
+        queue.flush();
+
+        assertEquals(2, flushes.size());
+        assertEquals(2, flushes.get(1).get(0).getId());
+    }
+}